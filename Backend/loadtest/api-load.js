@@ -0,0 +1,80 @@
+// Нагрузочный сценарий для сравнения режимов выполнения запросов:
+//   k6 run -e MODE=platform loadtest/api-load.js
+//   k6 run -e MODE=virtual  loadtest/api-load.js   (приложение запущено с профилем virtual-threads)
+// Сводка (RPS, p50/p95/p99) пишется в loadtest/results/<MODE>.json
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODE = __ENV.MODE || 'platform';
+const RATE = Number(__ENV.RATE || 500);
+const DURATION = __ENV.DURATION || '2m';
+
+export const options = {
+    scenarios: {
+        // Постоянная интенсивность: задержка меряется при одинаковой нагрузке в обоих режимах
+        mixed: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const user = JSON.stringify({ email: `load-${Date.now()}@example.com`, password: 'load-test' });
+    const params = { headers: { 'Content-Type': 'application/json' } };
+    http.post(`${BASE_URL}/api/auth/register`, user, params);
+    const token = http.post(`${BASE_URL}/api/auth/login`, user, params).body;
+    return { token };
+}
+
+export default function (data) {
+    const params = {
+        headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` },
+    };
+    const roll = Math.random();
+    if (roll < 0.6) {
+        const today = new Date().toISOString().slice(0, 10);
+        const heartbeats = JSON.stringify([{
+            projectPath: `/load/project${__VU % 10}`,
+            filePath: `/load/project${__VU % 10}/File${__ITER % 50}.java`,
+            date: today,
+            codingTime: 30,
+            openTime: 60,
+        }]);
+        const res = http.post(`${BASE_URL}/api/heartbeats`, heartbeats, { ...params, tags: { name: 'heartbeats' } });
+        check(res, { 'heartbeat accepted': (r) => r.status === 202 });
+    } else if (roll < 0.85) {
+        const res = http.get(`${BASE_URL}/api/stats/daily`, { ...params, tags: { name: 'daily' } });
+        check(res, { 'daily ok': (r) => r.status === 200 });
+    } else {
+        const res = http.get(`${BASE_URL}/api/projects?limit=20`, { ...params, tags: { name: 'projects' } });
+        check(res, { 'projects ok': (r) => r.status === 200 });
+    }
+}
+
+export function handleSummary(data) {
+    const duration = data.metrics.http_req_duration.values;
+    const summary = {
+        mode: MODE,
+        rate: RATE,
+        requestsPerSecond: data.metrics.http_reqs.values.rate,
+        failedRate: data.metrics.http_req_failed.values.rate,
+        p50: duration['p(50)'],
+        p95: duration['p(95)'],
+        p99: duration['p(99)'],
+        max: duration.max,
+    };
+    return {
+        stdout: JSON.stringify(summary, null, 2) + '\n',
+        [`loadtest/results/${MODE}.json`]: JSON.stringify(summary, null, 2),
+    };
+}
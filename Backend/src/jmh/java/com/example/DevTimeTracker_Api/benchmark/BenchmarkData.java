@@ -0,0 +1,57 @@
+package com.example.DevTimeTracker_Api.benchmark;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Детерминированные данные для бенчмарков: одинаковый seed даёт одинаковый проект на любом коммите
+final class BenchmarkData {
+
+    static final long SEED = 42L;
+    static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private BenchmarkData() {
+    }
+
+    // Файл активен примерно в половине дней диапазона, как у реального проекта
+    static ProjectStats project(int fileCount, int dayCount) {
+        Random random = new Random(SEED);
+        ProjectStats project = new ProjectStats();
+        project.setProjectPath("/bench/project");
+        project.setUserEmail("bench@example.com");
+
+        List<FileStats> files = new ArrayList<>(fileCount);
+        for (int f = 0; f < fileCount; f++) {
+            FileStats file = new FileStats();
+            file.setFilePath("/bench/project/src/File" + f + ".java");
+            file.setType("java");
+            file.setProject(project);
+
+            List<DailyStats> dailyStats = new ArrayList<>();
+            for (int d = 0; d < dayCount; d++) {
+                if (random.nextBoolean()) {
+                    continue;
+                }
+                DailyStats daily = new DailyStats();
+                daily.setDate(START.plusDays(d));
+                daily.setCodingTime(random.nextInt(3_600));
+                daily.setOpenTime(random.nextInt(7_200));
+                daily.setFile(file);
+                dailyStats.add(daily);
+            }
+            file.setDailyStats(dailyStats);
+            file.setCodingTime(dailyStats.stream().mapToLong(DailyStats::getCodingTime).sum());
+            file.setOpenTime(dailyStats.stream().mapToLong(DailyStats::getOpenTime).sum());
+            files.add(file);
+        }
+        project.setFiles(files);
+        project.setTotalCodingTime(files.stream().mapToLong(FileStats::getCodingTime).sum());
+        project.setTotalOpenTime(files.stream().mapToLong(FileStats::getOpenTime).sum());
+        return project;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.DevTimeTracker_Api.benchmark;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.service.DailyStatsAggregator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Агрегация дневной статистики файлов при создании проекта (POST /api/projects)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DailyAggregationBenchmark {
+
+    @Param({"10", "200", "1000"})
+    private int files;
+
+    @Param({"30", "365"})
+    private int days;
+
+    private final DailyStatsAggregator aggregator = new DailyStatsAggregator();
+    private List<FileStats> projectFiles;
+
+    @Setup
+    public void setup() {
+        projectFiles = BenchmarkData.project(files, days).getFiles();
+    }
+
+    @Benchmark
+    public List<DailyStats> aggregate() {
+        return aggregator.aggregate(projectFiles);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.DevTimeTracker_Api.benchmark;
+
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Сериализация графа ProjectStats, как в ответах /api/projects, и разбор тела POST /api/projects
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "200", "1000"})
+    private int files;
+
+    @Param({"90"})
+    private int days;
+
+    // Те же настройки по умолчанию, что использует Spring MVC
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private ProjectStats project;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        project = BenchmarkData.project(files, days);
+        payload = objectMapper.writeValueAsBytes(project);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(project);
+    }
+
+    @Benchmark
+    public ProjectStats deserialize() throws Exception {
+        return objectMapper.readValue(payload, ProjectStats.class);
+    }
+}
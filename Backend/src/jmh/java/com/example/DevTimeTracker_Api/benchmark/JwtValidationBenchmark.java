@@ -0,0 +1,66 @@
+package com.example.DevTimeTracker_Api.benchmark;
+
+import com.example.DevTimeTracker_Api.utils.JwtClaims;
+import com.example.DevTimeTracker_Api.utils.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Проверка токена в JwtFilter: старый путь (ключ и парсер на каждый вызов, три разбора) против одного разбора
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-32-bytes";
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil(SECRET, 10 * 60 * 60 * 1000L);
+        userDetails = new User("bench@example.com", "password", new ArrayList<>());
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public boolean legacyValidation() {
+        // Так JwtFilter проверял токен раньше: extractUsername, затем validateToken
+        String email = legacyParse(token).getSubject();
+        return legacyParse(token).getSubject().equals(email)
+                && !legacyParse(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParseValidation() {
+        JwtClaims claims = jwtUtil.parseToken(token);
+        return claims.subject().equals(userDetails.getUsername()) && !claims.isExpired();
+    }
+
+    private io.jsonwebtoken.Claims legacyParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
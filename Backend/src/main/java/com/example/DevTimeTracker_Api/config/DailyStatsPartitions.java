@@ -0,0 +1,154 @@
+package com.example.DevTimeTracker_Api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Помесячное партиционирование daily_stats по date. Включается свойством, для JPA таблица остаётся той же:
+// запросы за период читают только нужные партиции, а старую историю можно отсоединить целиком
+@Component
+@Slf4j
+public class DailyStatsPartitions {
+
+    private static final String TABLE = "daily_stats";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final String ARCHIVE_PREFIX = TABLE + "_archive_";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // Более старые строки при переходе попадают в DEFAULT-партицию, а не плодят сотни таблиц
+    private static final int MAX_BACKFILL_MONTHS = 120;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    public DailyStatsPartitions(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${daily-stats.partitioning.enabled:false}") boolean enabled,
+                                @Value("${daily-stats.partitioning.premake-months:3}") int premakeMonths,
+                                @Value("${daily-stats.partitioning.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+    }
+
+    public boolean isPartitioned() {
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, TABLE);
+        return kind.contains("p");
+    }
+
+    // Вызывается из SchemaMaintenance после остальных миграций
+    public void convertIfEnabled() {
+        if (!enabled || isPartitioned()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> convert());
+    }
+
+    @Scheduled(cron = "${daily-stats.partitioning.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!enabled || !isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= premakeMonths; i++) {
+            try {
+                createPartition(current.plusMonths(i));
+            } catch (DataAccessException e) {
+                // Например, DEFAULT-партиция уже содержит строки этого месяца
+                log.warn("Could not create daily_stats partition for {}: {}", current.plusMonths(i), e.getMessage());
+            }
+        }
+        if (retentionMonths > 0) {
+            detachBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    // Таблица пересоздаётся как партиционированная и заполняется копией строк в одной транзакции.
+    // Первичный ключ партиционированной таблицы обязан включать date, а date может быть NULL,
+    // поэтому вместо него обычный индекс по id: уникальность id обеспечивает последовательность
+    private void convert() {
+        LocalDate firstDate = jdbcTemplate.queryForObject("SELECT MIN(date) FROM " + TABLE, LocalDate.class);
+        YearMonth current = YearMonth.now();
+        YearMonth first = firstDate != null ? YearMonth.from(firstDate) : current;
+        if (first.isBefore(current.minusMonths(MAX_BACKFILL_MONTHS))) {
+            first = current.minusMonths(MAX_BACKFILL_MONTHS);
+        }
+
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + TABLE + "_unpartitioned INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (date)");
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + "_default PARTITION OF " + TABLE + " DEFAULT");
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(premakeMonths)); month = month.plusMonths(1)) {
+            createPartition(month);
+        }
+
+        int copied = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + TABLE + "_unpartitioned");
+        jdbcTemplate.execute("DROP TABLE " + TABLE + "_unpartitioned");
+
+        // Индексы на родительской таблице создаются во всех партициях, в том числе будущих
+        jdbcTemplate.execute("CREATE INDEX idx_daily_stats_id ON " + TABLE + " (id)");
+        jdbcTemplate.execute("CREATE INDEX idx_daily_stats_project_date ON " + TABLE + " (project_id, date)");
+        // Уникальные ключи upsert-ов включают date, поэтому допустимы и на партиционированной таблице
+        jdbcTemplate.execute("CREATE UNIQUE INDEX idx_daily_stats_file_date ON " + TABLE + " (file_id, date)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX ux_daily_stats_project_date ON " + TABLE + " (project_id, date) WHERE file_id IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT fk_daily_stats_project " +
+                "FOREIGN KEY (project_id) REFERENCES project_stats (id)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT fk_daily_stats_file " +
+                "FOREIGN KEY (file_id) REFERENCES file_stats (id)");
+        log.info("Converted {} to monthly partitions starting at {} ({} rows copied)", TABLE, first, copied);
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PARTITION_PREFIX + month.format(SUFFIX) +
+                " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    // Отсоединённая партиция остаётся обычной таблицей daily_stats_archive_yyyyMM: её можно выгрузить и удалить.
+    // Итоги проектов и user_daily_stats при этом не меняются. Внешние ключи родителя после DETACH остаются
+    // на архивной таблице и не дали бы удалить проект или файл с архивной историей, поэтому снимаются
+    private void detachBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?)", String.class, TABLE);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(matcher.group(1), SUFFIX);
+            if (month.isBefore(cutoff)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                    List<String> foreignKeys = jdbcTemplate.queryForList(
+                            "SELECT conname::text FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'",
+                            String.class, partition);
+                    for (String foreignKey : foreignKeys) {
+                        jdbcTemplate.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + foreignKey);
+                    }
+                    jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + ARCHIVE_PREFIX + matcher.group(1));
+                });
+                log.info("Detached {} partition for {} as {}{}", TABLE, month, ARCHIVE_PREFIX, matcher.group(1));
+            }
+        }
+    }
+}
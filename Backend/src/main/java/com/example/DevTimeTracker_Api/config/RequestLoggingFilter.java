@@ -0,0 +1,61 @@
+package com.example.DevTimeTracker_Api.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Одна строка на запрос вместо логов в каждом контроллере: медленные и упавшие запросы пишутся всегда,
+// остальные - только выборочно с долей logging.requests.sample-rate
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class RequestLoggingFilter extends OncePerRequestFilter {
+    private final double sampleRate;
+    private final long slowMillis;
+
+    public RequestLoggingFilter(@Value("${logging.requests.sample-rate:0.0}") double sampleRate,
+                                @Value("${logging.requests.slow-ms:1000}") long slowMillis) {
+        this.sampleRate = sampleRate;
+        this.slowMillis = slowMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long durationMillis = (System.nanoTime() - start) / 1_000_000;
+            int status = failed ? 500 : response.getStatus();
+            if (status >= 500 || durationMillis >= slowMillis) {
+                logRequest(Level.WARN, request, status, durationMillis);
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                logRequest(Level.INFO, request, status, durationMillis);
+            }
+        }
+    }
+
+    // Поля дублируются как key-value, чтобы JSON-лог в профиле prod можно было фильтровать без разбора текста
+    private void logRequest(Level level, HttpServletRequest request, int status, long durationMillis) {
+        log.atLevel(level)
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("uri", request.getRequestURI())
+                .addKeyValue("status", status)
+                .addKeyValue("durationMs", durationMillis)
+                .log("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status, durationMillis);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.DevTimeTracker_Api.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.Map;
+
+// Доводит схему после hibernate ddl-auto=update: то, что Hibernate сам не делает
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class SchemaMaintenance {
+
+    // Должен совпадать с allocationSize в @SequenceGenerator сущностей
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "project_stats", "project_stats_seq",
+            "file_stats", "file_stats_seq",
+            "daily_stats", "daily_stats_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DailyStatsPartitions dailyStatsPartitions;
+    private final UniqueKeyMigration uniqueKeyMigration;
+    private final UserDailyStatsBackfill userDailyStatsBackfill;
+    private final boolean recomputeTotals;
+
+    public SchemaMaintenance(JdbcTemplate jdbcTemplate, DailyStatsPartitions dailyStatsPartitions,
+                             UniqueKeyMigration uniqueKeyMigration,
+                             UserDailyStatsBackfill userDailyStatsBackfill,
+                             @Value("${stats.recompute-totals-on-startup:false}") boolean recomputeTotals) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dailyStatsPartitions = dailyStatsPartitions;
+        this.uniqueKeyMigration = uniqueKeyMigration;
+        this.userDailyStatsBackfill = userDailyStatsBackfill;
+        this.recomputeTotals = recomputeTotals;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        convertDailyStatsDate();
+        alignSequences();
+        uniqueKeyMigration.enforce();
+        userDailyStatsBackfill.backfillOnce();
+        dailyStatsPartitions.convertIfEnabled();
+        dailyStatsPartitions.maintain();
+        if (recomputeTotals) {
+            recomputeTotals();
+        }
+    }
+
+    // daily_stats.date раньше был varchar; ddl-auto=update тип колонки не меняет.
+    // Нераспознанные строки становятся NULL, а не срывают миграцию
+    private void convertDailyStatsDate() {
+        String type = jdbcTemplate.queryForObject(
+                "SELECT data_type FROM information_schema.columns WHERE table_name = 'daily_stats' AND column_name = 'date'",
+                String.class);
+        if (!"character varying".equals(type)) {
+            return;
+        }
+        Integer invalid = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // Временная функция видна только в этом соединении, поэтому всё в одном callback
+                statement.execute("CREATE FUNCTION pg_temp.try_date(value text) RETURNS date AS $$ " +
+                        "BEGIN RETURN value::date; EXCEPTION WHEN others THEN RETURN NULL; END $$ LANGUAGE plpgsql");
+                int nulled = statement.executeUpdate("UPDATE daily_stats SET date = NULL " +
+                        "WHERE date IS NOT NULL AND pg_temp.try_date(date) IS NULL");
+                statement.execute("ALTER TABLE daily_stats ALTER COLUMN date TYPE date USING pg_temp.try_date(date)");
+                statement.execute("DROP FUNCTION pg_temp.try_date(text)");
+                return nulled;
+            }
+        });
+        log.info("Converted daily_stats.date to date ({} unparseable values cleared)", invalid);
+    }
+
+    // Итоги раньше присылал клиент; разово пересчитываем их из дневных строк файлов, дальше сервер ведёт их сам
+    private void recomputeTotals() {
+        int files = jdbcTemplate.update("UPDATE file_stats f SET coding_time = s.coding_time, open_time = s.open_time " +
+                "FROM (SELECT f2.id, COALESCE(SUM(d.coding_time), 0) AS coding_time, COALESCE(SUM(d.open_time), 0) AS open_time " +
+                "FROM file_stats f2 LEFT JOIN daily_stats d ON d.file_id = f2.id GROUP BY f2.id) s " +
+                "WHERE f.id = s.id AND (f.coding_time <> s.coding_time OR f.open_time <> s.open_time)");
+        int projects = jdbcTemplate.update("UPDATE project_stats p SET total_coding_time = s.coding_time, total_open_time = s.open_time " +
+                "FROM (SELECT p2.id, COALESCE(SUM(f.coding_time), 0) AS coding_time, COALESCE(SUM(f.open_time), 0) AS open_time " +
+                "FROM project_stats p2 LEFT JOIN file_stats f ON f.project_id = p2.id GROUP BY p2.id) s " +
+                "WHERE p.id = s.id AND (p.total_coding_time <> s.coding_time OR p.total_open_time <> s.open_time)");
+        log.info("Recomputed totals from daily stats ({} files and {} projects corrected)", files, projects);
+    }
+
+    // Таблицы раньше заполнялись через IDENTITY, а новые последовательности начинаются с 1
+    private void alignSequences() {
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+            if (maxId != null && lastValue != null && lastValue < maxId) {
+                jdbcTemplate.queryForObject("SELECT setval(?, ?)", Long.class, sequence, maxId + ALLOCATION_SIZE);
+                log.info("Moved sequence {} past existing ids of {} (max id {})", sequence, table, maxId);
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.DevTimeTracker_Api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Уникальные ключи, на которых держатся upsert-ы статистики. Без них параллельные запросы с разных устройств
+// создавали дубли проектов, файлов и дневных строк; ddl-auto=update не может добавить ключ, пока дубли есть.
+// Дубли сливаются в строку с наименьшим id: время складывается, ссылки переводятся на неё
+@Component
+@Slf4j
+public class UniqueKeyMigration {
+
+    private static final String PROJECT_KEY = "ux_project_stats_user_path";
+    private static final String FILE_KEY = "ux_file_stats_project_path";
+    private static final String FILE_DAY_KEY = "idx_daily_stats_file_date";
+    private static final String PROJECT_DAY_KEY = "ux_daily_stats_project_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UniqueKeyMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Вызывается из SchemaMaintenance до партиционирования daily_stats
+    public void enforce() {
+        if (isUnique(PROJECT_KEY) && isUnique(FILE_KEY) && isUnique(FILE_DAY_KEY) && isUnique(PROJECT_DAY_KEY)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // Запись останавливается до конца слияния, чтобы новые дубли не появились между проверкой и ключом
+            jdbcTemplate.execute("LOCK TABLE project_stats, file_stats, daily_stats, git_hub_badge IN SHARE ROW EXCLUSIVE MODE");
+            mergeProjects();
+            mergeFiles();
+            mergeDailyStats();
+            createKeys();
+        });
+    }
+
+    private boolean isUnique(String index) {
+        List<Boolean> unique = jdbcTemplate.queryForList(
+                "SELECT indisunique FROM pg_index WHERE indexrelid = to_regclass(?)", Boolean.class, index);
+        return unique.contains(Boolean.TRUE);
+    }
+
+    // Бейдж у проекта один: у слитых копий бейджи удаляются, остаётся бейдж строки с наименьшим id
+    private void mergeProjects() {
+        int merged = collectDuplicates("project_stats", "user_email, project_path",
+                "user_email IS NOT NULL AND project_path IS NOT NULL");
+        if (merged == 0) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE project_stats p SET total_coding_time = p.total_coding_time + s.coding_time, " +
+                "total_open_time = p.total_open_time + s.open_time " +
+                "FROM (SELECT m.keep_id, SUM(d.total_coding_time) AS coding_time, SUM(d.total_open_time) AS open_time " +
+                "FROM merge_map m JOIN project_stats d ON d.id = m.id GROUP BY m.keep_id) s WHERE p.id = s.keep_id");
+        jdbcTemplate.update("UPDATE file_stats f SET project_id = m.keep_id FROM merge_map m WHERE f.project_id = m.id");
+        jdbcTemplate.update("UPDATE daily_stats d SET project_id = m.keep_id FROM merge_map m WHERE d.project_id = m.id");
+        jdbcTemplate.update("DELETE FROM git_hub_badge b USING merge_map m WHERE b.project_id = m.id");
+        jdbcTemplate.update("DELETE FROM project_stats p USING merge_map m WHERE p.id = m.id");
+        log.info("Merged {} duplicate project_stats rows", merged);
+    }
+
+    // После слияния проектов у строки-приёмника могут оказаться файлы с одинаковыми путями
+    private void mergeFiles() {
+        int merged = collectDuplicates("file_stats", "project_id, file_path",
+                "project_id IS NOT NULL AND file_path IS NOT NULL");
+        if (merged == 0) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE file_stats f SET coding_time = f.coding_time + s.coding_time, " +
+                "open_time = f.open_time + s.open_time " +
+                "FROM (SELECT m.keep_id, SUM(d.coding_time) AS coding_time, SUM(d.open_time) AS open_time " +
+                "FROM merge_map m JOIN file_stats d ON d.id = m.id GROUP BY m.keep_id) s WHERE f.id = s.keep_id");
+        jdbcTemplate.update("UPDATE daily_stats d SET file_id = m.keep_id FROM merge_map m WHERE d.file_id = m.id");
+        jdbcTemplate.update("DELETE FROM file_stats f USING merge_map m WHERE f.id = m.id");
+        log.info("Merged {} duplicate file_stats rows", merged);
+    }
+
+    private void mergeDailyStats() {
+        int fileDays = collectDuplicates("daily_stats", "file_id, date",
+                "file_id IS NOT NULL AND date IS NOT NULL");
+        if (fileDays > 0) {
+            mergeDailyRows();
+        }
+        int projectDays = collectDuplicates("daily_stats", "project_id, date",
+                "file_id IS NULL AND project_id IS NOT NULL AND date IS NOT NULL");
+        if (projectDays > 0) {
+            mergeDailyRows();
+        }
+        if (fileDays + projectDays > 0) {
+            log.info("Merged {} duplicate daily_stats rows of files and {} of projects", fileDays, projectDays);
+        }
+    }
+
+    private void mergeDailyRows() {
+        jdbcTemplate.update("UPDATE daily_stats d SET coding_time = d.coding_time + s.coding_time, " +
+                "open_time = d.open_time + s.open_time " +
+                "FROM (SELECT m.keep_id, SUM(x.coding_time) AS coding_time, SUM(x.open_time) AS open_time " +
+                "FROM merge_map m JOIN daily_stats x ON x.id = m.id GROUP BY m.keep_id) s WHERE d.id = s.keep_id");
+        jdbcTemplate.update("DELETE FROM daily_stats d USING merge_map m WHERE d.id = m.id");
+    }
+
+    // merge_map(id, keep_id): лишние строки каждой группы и строка, в которую они сливаются
+    private int collectDuplicates(String table, String key, String filter) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS pg_temp.merge_map");
+        jdbcTemplate.execute("CREATE TEMP TABLE merge_map ON COMMIT DROP AS " +
+                "SELECT id, MIN(id) OVER (PARTITION BY " + key + ") AS keep_id FROM " + table + " WHERE " + filter);
+        jdbcTemplate.update("DELETE FROM merge_map WHERE id = keep_id");
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM merge_map", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private void createKeys() {
+        if (!isUnique(PROJECT_KEY)) {
+            jdbcTemplate.execute("ALTER TABLE project_stats ADD CONSTRAINT " + PROJECT_KEY + " UNIQUE (user_email, project_path)");
+        }
+        if (!isUnique(FILE_KEY)) {
+            jdbcTemplate.execute("ALTER TABLE file_stats ADD CONSTRAINT " + FILE_KEY + " UNIQUE (project_id, file_path)");
+        }
+        // Раньше индекс по (file_id, date) был обычным
+        if (!isUnique(FILE_DAY_KEY)) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + FILE_DAY_KEY);
+            jdbcTemplate.execute("CREATE UNIQUE INDEX " + FILE_DAY_KEY + " ON daily_stats (file_id, date)");
+        }
+        if (!isUnique(PROJECT_DAY_KEY)) {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX " + PROJECT_DAY_KEY + " ON daily_stats (project_id, date) WHERE file_id IS NULL");
+        }
+        log.info("Unique keys of project_stats, file_stats and daily_stats are in place");
+    }
+}
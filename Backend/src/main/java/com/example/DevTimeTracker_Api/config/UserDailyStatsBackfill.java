@@ -0,0 +1,57 @@
+package com.example.DevTimeTracker_Api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// user_daily_stats ведётся при записи, а история, записанная до её появления, есть только в daily_stats.
+// Разово сводим её по (user_email, date) из дневных строк файлов. Отметка о выполнении - комментарий таблицы
+@Component
+@Slf4j
+public class UserDailyStatsBackfill {
+
+    private static final String DONE = "backfilled from daily_stats";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserDailyStatsBackfill(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Вызывается из SchemaMaintenance
+    public void backfillOnce() {
+        List<String> comment = jdbcTemplate.queryForList(
+                "SELECT obj_description(to_regclass('user_daily_stats'), 'pg_class')", String.class);
+        if (comment.contains(DONE)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            backfill();
+            jdbcTemplate.execute("COMMENT ON TABLE user_daily_stats IS '" + DONE + "'");
+        });
+    }
+
+    // Дни, которые уже есть в daily_stats, получают их полную сумму: строка, начатая записями после обновления,
+    // содержала бы только их. Дни без строк в daily_stats (уже отправленные в архив партиции) не трогаются
+    public int backfill() {
+        return transactionTemplate.execute(status -> {
+            // Запись сводки другими экземплярами ждёт конца пересчёта, чтобы её дельта не потерялась
+            jdbcTemplate.execute("LOCK TABLE user_daily_stats IN SHARE ROW EXCLUSIVE MODE");
+            int days = jdbcTemplate.update("INSERT INTO user_daily_stats (id, user_email, date, coding_time, open_time) " +
+                    "SELECT nextval('user_daily_stats_seq'), s.user_email, s.date, s.coding_time, s.open_time " +
+                    "FROM (SELECT p.user_email, d.date, SUM(d.coding_time) AS coding_time, SUM(d.open_time) AS open_time " +
+                    "FROM daily_stats d JOIN project_stats p ON p.id = d.project_id " +
+                    "WHERE d.file_id IS NOT NULL AND d.date IS NOT NULL AND p.user_email IS NOT NULL " +
+                    "GROUP BY p.user_email, d.date) s " +
+                    "ON CONFLICT (user_email, date) DO UPDATE SET coding_time = EXCLUDED.coding_time, open_time = EXCLUDED.open_time " +
+                    "WHERE user_daily_stats.coding_time <> EXCLUDED.coding_time OR user_daily_stats.open_time <> EXCLUDED.open_time");
+            log.info("Backfilled user_daily_stats from daily_stats ({} days written)", days);
+            return days;
+        });
+    }
+}
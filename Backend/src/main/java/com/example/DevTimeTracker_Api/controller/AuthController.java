@@ -1,10 +1,18 @@
 package com.example.DevTimeTracker_Api.controller;
 
+import com.example.DevTimeTracker_Api.dto.DeviceLoginRequest;
+import com.example.DevTimeTracker_Api.dto.DeviceSession;
 import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.dto.RefreshRequest;
+import com.example.DevTimeTracker_Api.dto.TokenResponse;
 import com.example.DevTimeTracker_Api.entity.User;
 import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.example.DevTimeTracker_Api.security.PasswordHashingRejectedException;
+import com.example.DevTimeTracker_Api.service.DeviceSessionService;
+import com.example.DevTimeTracker_Api.utils.AuthUtils;
 import com.example.DevTimeTracker_Api.utils.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,15 +20,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/auth")
 @Slf4j
@@ -42,6 +54,9 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DeviceSessionService deviceSessionService;
+
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Registers a new user and stores their credentials")
     @ApiResponses(value = {
@@ -51,11 +66,13 @@ public class AuthController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "409", description = "User with this email already exists",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Too many authentication requests, retry later",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<?> register(@RequestBody User user) {
-        log.info("Registering user with email: {}", user.getUsername());
+        log.debug("Registering user with email: {}", user.getUsername());
         try {
             if (user.getUsername() == null || user.getPassword() == null) {
                 log.warn("Email or password is missing for registration");
@@ -71,6 +88,9 @@ public class AuthController {
             userRepository.save(user);
             log.info("User {} registered successfully", user.getUsername());
             return ResponseEntity.ok("User registered");
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Registration of {} rejected: {}", user.getUsername(), e.getMessage());
+            return tooManyRequests();
         } catch (Exception e) {
             log.error("Failed to register user with email: {}", user.getUsername(), e);
             return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
@@ -86,11 +106,13 @@ public class AuthController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "Invalid email or password",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Too many authentication requests, retry later",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<?> login(@RequestBody User user) {
-        log.info("Login attempt for email: {}", user.getUsername());
+        log.debug("Login attempt for email: {}", user.getUsername());
         try {
             if (user.getUsername() == null || user.getPassword() == null) {
                 log.warn("Email or password is missing for login");
@@ -108,9 +130,171 @@ public class AuthController {
         } catch (BadCredentialsException e) {
             log.warn("Invalid credentials for email: {}", user.getUsername());
             return ResponseEntity.status(401).body(new ErrorResponse("Invalid email or password"));
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Login of {} rejected: {}", user.getUsername(), e.getMessage());
+            return tooManyRequests();
+        } catch (InternalAuthenticationServiceException e) {
+            // Для неизвестного email DaoAuthenticationProvider хэширует пароль-заглушку и заворачивает отказ пула
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                log.warn("Login of {} rejected: {}", user.getUsername(), rejected.getMessage());
+                return tooManyRequests();
+            }
+            log.error("Login failed for email: {}", user.getUsername(), e);
+            return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
         } catch (Exception e) {
             log.error("Login failed for email: {}", user.getUsername(), e);
             return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/device-login")
+    @Operation(summary = "Login from a device", description = "Authenticates a user once and opens a long-lived device session. Returns an access token and a refresh token bound to the device")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token pair returned",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TokenResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request data",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Invalid email or password",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Too many authentication requests, retry later",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> deviceLogin(@RequestBody DeviceLoginRequest request) {
+        log.debug("Device login attempt for email: {} from {} / {}", request.getEmail(), request.getDeviceName(), request.getIde());
+        try {
+            if (request.getEmail() == null || request.getPassword() == null) {
+                log.warn("Email or password is missing for device login");
+                return ResponseEntity.badRequest().body(new ErrorResponse("Email and password are required"));
+            }
+
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
+            );
+
+            TokenResponse tokens = deviceSessionService.openSession(request.getEmail(), request.getDeviceName(), request.getIde());
+            log.info("User {} opened session for device {}", request.getEmail(), tokens.getDeviceId());
+            return ResponseEntity.ok(tokens);
+        } catch (BadCredentialsException e) {
+            log.warn("Invalid credentials for email: {}", request.getEmail());
+            return ResponseEntity.status(401).body(new ErrorResponse("Invalid email or password"));
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Device login of {} rejected: {}", request.getEmail(), e.getMessage());
+            return tooManyRequests();
+        } catch (InternalAuthenticationServiceException e) {
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                log.warn("Device login of {} rejected: {}", request.getEmail(), rejected.getMessage());
+                return tooManyRequests();
+            }
+            log.error("Device login failed for email: {}", request.getEmail(), e);
+            return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
+        } catch (Exception e) {
+            log.error("Device login failed for email: {}", request.getEmail(), e);
+            return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
+        }
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh tokens", description = "Exchanges a refresh token for a new access/refresh token pair without checking the password. The old refresh token stops working; presenting it again revokes the device session")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "New token pair returned",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TokenResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Refresh token is missing",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token is invalid, reused, expired or revoked",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            if (request.getRefreshToken() == null || request.getRefreshToken().isEmpty()) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("Refresh token is required"));
+            }
+            TokenResponse tokens = deviceSessionService.refresh(request.getRefreshToken());
+            log.debug("Tokens refreshed for device {}", tokens.getDeviceId());
+            return ResponseEntity.ok(tokens);
+        } catch (BadCredentialsException e) {
+            log.warn("Refresh rejected: {}", e.getMessage());
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Token refresh failed", e);
+            return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
+        }
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Logout device", description = "Revokes the device session of the given refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device session revoked",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Refresh token is missing",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token is invalid",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> logout(@RequestBody RefreshRequest request) {
+        try {
+            if (request.getRefreshToken() == null || request.getRefreshToken().isEmpty()) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("Refresh token is required"));
+            }
+            deviceSessionService.logout(request.getRefreshToken());
+            return ResponseEntity.ok("Logged out");
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Logout failed", e);
+            return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
+        }
+    }
+
+    @GetMapping("/devices")
+    @Operation(summary = "List device sessions", description = "Returns the device sessions of the authenticated user, most recently used first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device sessions retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DeviceSession.class)))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> getDevices() {
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            List<DeviceSession> sessions = deviceSessionService.listSessions(userEmail);
+            return ResponseEntity.ok(sessions);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/devices/{id}")
+    @Operation(summary = "Revoke device session", description = "Revokes a device session of the authenticated user; its refresh token stops working")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device session revoked",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Device not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> revokeDevice(@PathVariable Long id) {
+        log.debug("Revoking device session {}", id);
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            if (!deviceSessionService.revoke(userEmail, id)) {
+                return ResponseEntity.status(404).body(new ErrorResponse("Device not found"));
+            }
+            return ResponseEntity.ok("Device session revoked");
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> tooManyRequests() {
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("Too many authentication requests, retry later"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.DevTimeTracker_Api.controller;
+
+import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.entity.GitHubBadge;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.service.BadgeService;
+import com.example.DevTimeTracker_Api.utils.AuthUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/badges")
+@Slf4j
+@Tag(name = "Badges", description = "Public SVG badges with project coding time for READMEs")
+public class BadgeController {
+
+    private static final MediaType SVG = MediaType.valueOf("image/svg+xml");
+
+    @Autowired
+    private BadgeService badgeService;
+
+    @Autowired
+    private ProjectStatsRepository projectStatsRepository;
+
+    @Value("${badge.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    @GetMapping("/{projectId}.svg")
+    @Operation(summary = "Get project badge", description = "Returns an SVG badge with the total coding time of a project whose badge is public. " +
+            "Supports conditional GET with If-None-Match")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "SVG badge",
+                    content = @Content(mediaType = "image/svg+xml")),
+            @ApiResponse(responseCode = "304", description = "Badge not modified"),
+            @ApiResponse(responseCode = "404", description = "Badge not found or not public")
+    })
+    public ResponseEntity<byte[]> getBadge(@PathVariable Long projectId) {
+        Optional<BadgeService.RenderedBadge> badge = badgeService.getBadge(projectId);
+        if (badge.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // При совпадении If-None-Match Spring сам отвечает 304 без тела
+        return ResponseEntity.ok()
+                .contentType(SVG)
+                .eTag(badge.get().etag())
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic())
+                .body(badge.get().svg());
+    }
+
+    @PutMapping("/{projectId}")
+    @Operation(summary = "Publish or hide project badge", description = "Makes the badge of a project public or hides it. Only the project owner can change it")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Badge updated",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = GitHubBadge.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "You do not have access to this project",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Project not found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> setBadgeVisibility(@PathVariable Long projectId,
+                                                @RequestParam(name = "public") boolean isPublic) {
+        log.debug("Setting badge of project {} public: {}", projectId, isPublic);
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            Optional<ProjectStats> project = projectStatsRepository.findById(String.valueOf(projectId));
+            if (project.isEmpty()) {
+                return ResponseEntity.status(404).body(new ErrorResponse("Project not found"));
+            }
+            if (!project.get().getUserEmail().equals(userEmail)) {
+                log.warn("User {} does not have access to project ID {}", userEmail, projectId);
+                return ResponseEntity.status(403).body(new ErrorResponse("You do not have access to this project"));
+            }
+            return ResponseEntity.ok(badgeService.setPublic(project.get(), isPublic));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+}
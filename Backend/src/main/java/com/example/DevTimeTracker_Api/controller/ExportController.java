@@ -0,0 +1,87 @@
+package com.example.DevTimeTracker_Api.controller;
+
+import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.service.ActivityExportService;
+import com.example.DevTimeTracker_Api.service.ExportFormat;
+import com.example.DevTimeTracker_Api.utils.AuthUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@Slf4j
+@Tag(name = "Export", description = "API for bulk export of activity history")
+public class ExportController {
+
+    @Autowired
+    private ActivityExportService activityExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping
+    @Operation(summary = "Export activity history",
+            description = "Streams all per-file daily stats of the authenticated user as NDJSON (same records as /api/import accepts) " +
+                    "or CSV. With gzip=true the file is sent gzip-compressed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export stream",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv"),
+                            @Content(mediaType = "application/gzip")}),
+            @ApiResponse(responseCode = "400", description = "Unknown export format",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> exportActivity(@RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            // SecurityContext не доступен в потоке, который пишет ответ, поэтому email берётся здесь
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            if (exportFormat == null) {
+                return error(400, "Unknown export format: " + format);
+            }
+            log.info("Exporting activity of {} as {} (gzip {})", userEmail, exportFormat, gzip);
+
+            StreamingResponseBody body = out -> {
+                OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+                long rows = activityExportService.export(userEmail, exportFormat, target);
+                if (target instanceof GZIPOutputStream gzipStream) {
+                    gzipStream.finish();
+                }
+                log.info("Exported {} rows for {}", rows, userEmail);
+            };
+
+            String fileName = "activity." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                    .body(body);
+        } catch (SecurityException e) {
+            return error(401, e.getMessage());
+        }
+    }
+
+    // Тип ответа фиксирован StreamingResponseBody, поэтому ошибка тоже пишется потоком
+    private ResponseEntity<StreamingResponseBody> error(int status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, new ErrorResponse(message)));
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.DevTimeTracker_Api.controller;
 
+import com.example.DevTimeTracker_Api.dto.ColumnarFile;
 import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.dto.StatsLayout;
 import com.example.DevTimeTracker_Api.entity.DailyStats;
 import com.example.DevTimeTracker_Api.entity.FileStats;
 import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
+import com.example.DevTimeTracker_Api.service.FileStatsService;
 import com.example.DevTimeTracker_Api.utils.AuthUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,9 +16,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 @RestController
@@ -27,6 +32,9 @@ public class FileStatsController {
     @Autowired
     private FileStatsRepository fileStatsRepository;
 
+    @Autowired
+    private FileStatsService fileStatsService;
+
     @PostMapping
     @Operation(summary = "Create a new file", description = "Creates a new file with associated daily stats, linked to a project if specified")
     @ApiResponses(value = {
@@ -42,7 +50,7 @@ public class FileStatsController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<?> createFile(@RequestBody FileStats file) {
-        log.info("Creating file with path: {}", file.getFilePath());
+        log.debug("Creating file with path: {}", file.getFilePath());
         try {
             String userEmail = AuthUtils.getAuthenticatedUserEmail();
 
@@ -70,8 +78,8 @@ public class FileStatsController {
                 }
             }
 
-            FileStats savedFile = fileStatsRepository.save(file);
-            log.info("File created with ID: {}", savedFile.getId());
+            FileStats savedFile = fileStatsService.saveFile(file);
+            log.debug("File created with ID: {}", savedFile.getId());
             return ResponseEntity.ok(savedFile);
         } catch (SecurityException e) {
             return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
@@ -82,10 +90,13 @@ public class FileStatsController {
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get a file by ID", description = "Retrieves a file by its ID if accessible to the authenticated user")
+    @Operation(summary = "Get a file by ID", description = "Retrieves a file by its ID if accessible to the authenticated user. " +
+            "Optional from/to (ISO dates, inclusive) limit the returned daily stats. layout=columnar returns daily stats as parallel arrays")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "File found",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = FileStats.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid date range or layout",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "You are not authorized",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "403", description = "You do not have access to this file",
@@ -93,11 +104,23 @@ public class FileStatsController {
             @ApiResponse(responseCode = "404", description = "File not found",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> getFile(@PathVariable Long id) {
-        log.info("Fetching file with ID: {}", id);
+    public ResponseEntity<?> getFile(@PathVariable Long id,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                     @RequestParam(defaultValue = "full") String layout) {
+        log.debug("Fetching file with ID: {} (from {} to {})", id, from, to);
         try {
             String userEmail = AuthUtils.getAuthenticatedUserEmail();
-            Optional<FileStats> file = fileStatsRepository.findById(id);
+            if (from != null && to != null && from.isAfter(to)) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("'from' must not be after 'to'"));
+            }
+            StatsLayout statsLayout = StatsLayout.parse(layout);
+            if (statsLayout == null) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("Unsupported layout: " + layout));
+            }
+            Optional<FileStats> file = from != null || to != null
+                    ? fileStatsService.findDetailed(id, from, to)
+                    : fileStatsService.findDetailed(id);
             if (file.isEmpty()) {
                 log.warn("File with ID {} not found", id);
                 return ResponseEntity.status(404).body(new ErrorResponse("File not found"));
@@ -110,6 +133,9 @@ public class FileStatsController {
                 return ResponseEntity.status(403).body(new ErrorResponse("You do not have access to this file"));
             }
 
+            if (statsLayout == StatsLayout.COLUMNAR) {
+                return ResponseEntity.ok(new ColumnarFile(file.get()));
+            }
             return ResponseEntity.ok(file.get());
         } catch (SecurityException e) {
             return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
@@ -145,7 +171,7 @@ public class FileStatsController {
                 return ResponseEntity.status(403).body(new ErrorResponse("You do not have access to this file"));
             }
 
-            fileStatsRepository.deleteById(id);
+            fileStatsService.deleteFile(file.get());
             log.info("File with ID {} deleted", id);
             return ResponseEntity.ok("File deleted");
         } catch (SecurityException e) {
@@ -0,0 +1,91 @@
+package com.example.DevTimeTracker_Api.controller;
+
+import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.dto.HeartbeatRequest;
+import com.example.DevTimeTracker_Api.dto.HeartbeatResponse;
+import com.example.DevTimeTracker_Api.service.ActivityBuffer;
+import com.example.DevTimeTracker_Api.utils.AuthUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/heartbeats")
+@Slf4j
+@Tag(name = "Heartbeats", description = "API for incremental activity ingestion")
+public class HeartbeatController {
+
+    private static final int MAX_HEARTBEATS_PER_REQUEST = 500;
+
+    @Autowired
+    private ActivityBuffer activityBuffer;
+
+    @PostMapping
+    @Operation(summary = "Record heartbeats", description = "Buffers small coding/open time deltas; they are coalesced and applied to the project, file and daily stats in batches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Heartbeats accepted",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = HeartbeatResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid heartbeat data",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "Ingestion buffer is full, retry later",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> recordHeartbeats(@RequestBody List<HeartbeatRequest> heartbeats) {
+        log.debug("Recording {} heartbeats", heartbeats.size());
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+
+            String error = validate(heartbeats);
+            if (error != null) {
+                log.warn("Rejected heartbeats from {}: {}", userEmail, error);
+                return ResponseEntity.badRequest().body(new ErrorResponse(error));
+            }
+
+            if (!activityBuffer.offer(userEmail, heartbeats)) {
+                return ResponseEntity.status(503)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(new ErrorResponse("Ingestion buffer is full, retry later"));
+            }
+            return ResponseEntity.accepted().body(new HeartbeatResponse(heartbeats.size()));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to record heartbeats", e);
+            return ResponseEntity.status(500).body(new ErrorResponse("Internal server error"));
+        }
+    }
+
+    private String validate(List<HeartbeatRequest> heartbeats) {
+        if (heartbeats.isEmpty()) {
+            return "At least one heartbeat is required";
+        }
+        if (heartbeats.size() > MAX_HEARTBEATS_PER_REQUEST) {
+            return "No more than " + MAX_HEARTBEATS_PER_REQUEST + " heartbeats per request";
+        }
+        for (int i = 0; i < heartbeats.size(); i++) {
+            HeartbeatRequest heartbeat = heartbeats.get(i);
+            if (heartbeat == null) {
+                return "Heartbeat #" + i + " is empty";
+            }
+            String error = heartbeat.validationError();
+            if (error != null) {
+                return "Heartbeat #" + i + ": " + error;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.DevTimeTracker_Api.controller;
+
+import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.dto.ImportResult;
+import com.example.DevTimeTracker_Api.service.ActivityImportService;
+import com.example.DevTimeTracker_Api.utils.AuthUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/import")
+@Slf4j
+@Tag(name = "Import", description = "API for bulk import of activity history")
+public class ImportController {
+
+    @Autowired
+    private ActivityImportService activityImportService;
+
+    @PostMapping
+    @Operation(summary = "Import activity history",
+            description = "Streams an NDJSON body with one record per line in the heartbeat format " +
+                    "({\"projectPath\", \"filePath\", \"date\", \"codingTime\", \"openTime\"}). Records are written in batches; " +
+                    "invalid lines are skipped and reported. If a batch fails, everything up to committedLines is kept")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResult.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Import aborted, records up to committedLines were saved",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResult.class)))
+    })
+    public ResponseEntity<?> importActivity(InputStream body) {
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            log.info("Starting activity import for {}", userEmail);
+
+            ImportResult result = activityImportService.importNdjson(userEmail, body);
+            if (result.getAbortedReason() != null) {
+                return ResponseEntity.status(500).body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            log.warn("Activity import interrupted while reading the request body", e);
+            return ResponseEntity.status(400).body(new ErrorResponse("Failed to read import body"));
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.DevTimeTracker_Api.controller;
 
+import com.example.DevTimeTracker_Api.dto.ColumnarProject;
 import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.dto.ProjectSummary;
+import com.example.DevTimeTracker_Api.dto.StatsLayout;
 import com.example.DevTimeTracker_Api.entity.DailyStats;
 import com.example.DevTimeTracker_Api.entity.FileStats;
 import com.example.DevTimeTracker_Api.entity.ProjectStats;
 import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.service.DailyStatsAggregator;
+import com.example.DevTimeTracker_Api.service.IngestionMetrics;
+import com.example.DevTimeTracker_Api.service.ProjectStatsService;
 import com.example.DevTimeTracker_Api.utils.AuthUtils;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,9 +21,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -25,27 +36,51 @@ import java.util.*;
 @Tag(name = "Projects", description = "API for managing project statistics")
 public class ProjectStatsController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private ProjectStatsRepository projectStatsRepository;
 
+    @Autowired
+    private ProjectStatsService projectStatsService;
+
+    @Autowired
+    private DailyStatsAggregator dailyStatsAggregator;
+
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+
     @PostMapping
-    @Operation(summary = "Create a new project", description = "Creates a new project with aggregated daily stats")
+    @Operation(summary = "Create a new project", description = "Creates a new project with aggregated daily stats. " +
+            "If the user already has a project with this path, the submitted time is added to it")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Project created successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProjectStats.class))),
+            @ApiResponse(responseCode = "400", description = "Missing or duplicate file path",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "You are not authorized",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<?> createProject(@RequestBody ProjectStats project) {
-        log.info("Creating project with path: {}", project.getProjectPath());
+        log.debug("Creating project with path: {}", project.getProjectPath());
         try {
             String userEmail = AuthUtils.getAuthenticatedUserEmail();
             project.setUserEmail(userEmail);
 
             if (project.getFiles() != null) {
+                // Файл проекта однозначно определяется путём: по нему время складывается с уже сохранённым
+                Set<String> filePaths = new HashSet<>();
                 for (FileStats file : project.getFiles()) {
+                    if (file.getFilePath() == null || file.getFilePath().isEmpty()) {
+                        return ResponseEntity.badRequest().body(new ErrorResponse("File path cannot be empty"));
+                    }
+                    if (!filePaths.add(file.getFilePath())) {
+                        return ResponseEntity.badRequest().body(new ErrorResponse("Duplicate file path: " + file.getFilePath()));
+                    }
                     file.setProject(project);
                     if (file.getDailyStats() != null) {
                         for (DailyStats daily : file.getDailyStats()) {
@@ -58,11 +93,11 @@ public class ProjectStatsController {
 
             // Агрегация dailyStats из файлов
             if (project.getFiles() != null && !project.getFiles().isEmpty()) {
-                project.setDailyStats(aggregateDailyStatsFromFiles(project.getFiles()));
+                project.setDailyStats(ingestionMetrics.timeAggregation(() -> dailyStatsAggregator.aggregate(project.getFiles())));
             }
 
-            ProjectStats savedProject = projectStatsRepository.save(project);
-            log.info("Project created with ID: {}", savedProject.getId());
+            ProjectStats savedProject = projectStatsService.saveProject(project);
+            log.debug("Project created with ID: {}", savedProject.getId());
             return ResponseEntity.ok(savedProject);
         } catch (SecurityException e) {
             return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
@@ -72,37 +107,15 @@ public class ProjectStatsController {
         }
     }
 
-    // Метод для агрегации dailyStats из файлов
-    private List<DailyStats> aggregateDailyStatsFromFiles(List<FileStats> files) {
-        Map<String, DailyStats> aggregatedStats = new HashMap<>();
-        for (FileStats file : files) {
-            if (file.getDailyStats() != null) {
-                for (DailyStats daily : file.getDailyStats()) {
-                    String date = daily.getDate();
-                    aggregatedStats.compute(date, (key, existing) -> {
-                        if (existing == null) {
-                            DailyStats newDaily = new DailyStats();
-                            newDaily.setDate(date);
-                            newDaily.setCodingTime(daily.getCodingTime());
-                            newDaily.setOpenTime(daily.getOpenTime());
-                            return newDaily;
-                        } else {
-                            existing.setCodingTime(existing.getCodingTime() + daily.getCodingTime());
-                            existing.setOpenTime(existing.getOpenTime() + daily.getOpenTime());
-                            return existing;
-                        }
-                    });
-                }
-            }
-        }
-        return new ArrayList<>(aggregatedStats.values());
-    }
-
     @GetMapping("/{id}")
-    @Operation(summary = "Get a project by ID", description = "Retrieves a project by its ID if it belongs to the authenticated user")
+    @Operation(summary = "Get a project by ID", description = "Retrieves a project by its ID if it belongs to the authenticated user. " +
+            "Optional from/to (ISO dates, inclusive) limit the returned daily stats of the project and its files. " +
+            "layout=columnar returns daily stats as parallel arrays")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Project found",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProjectStats.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid date range or layout",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "You are not authorized",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "403", description = "You do not have access to this project",
@@ -110,11 +123,23 @@ public class ProjectStatsController {
             @ApiResponse(responseCode = "404", description = "Project not found",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> getProject(@PathVariable Long id) {
-        log.info("Fetching project with ID: {}", id);
+    public ResponseEntity<?> getProject(@PathVariable Long id,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(defaultValue = "full") String layout) {
+        log.debug("Fetching project with ID: {} (from {} to {})", id, from, to);
         try {
             String userEmail = AuthUtils.getAuthenticatedUserEmail();
-            Optional<ProjectStats> project = projectStatsRepository.findById(String.valueOf(id));
+            if (from != null && to != null && from.isAfter(to)) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("'from' must not be after 'to'"));
+            }
+            StatsLayout statsLayout = StatsLayout.parse(layout);
+            if (statsLayout == null) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("Unsupported layout: " + layout));
+            }
+            Optional<ProjectStats> project = from != null || to != null
+                    ? projectStatsService.findDetailed(id, from, to)
+                    : projectStatsService.findDetailed(id);
             if (project.isEmpty()) {
                 log.warn("Project with ID {} not found", id);
                 return ResponseEntity.status(404).body(new ErrorResponse("Project not found"));
@@ -123,6 +148,9 @@ public class ProjectStatsController {
                 log.warn("User {} does not have access to project ID {}", userEmail, id);
                 return ResponseEntity.status(403).body(new ErrorResponse("You do not have access to this project"));
             }
+            if (statsLayout == StatsLayout.COLUMNAR) {
+                return ResponseEntity.ok(new ColumnarProject(project.get()));
+            }
             return ResponseEntity.ok(project.get());
         } catch (SecurityException e) {
             return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
@@ -154,7 +182,7 @@ public class ProjectStatsController {
                 log.warn("User {} does not have access to project ID {}", userEmail, id);
                 return ResponseEntity.status(403).body(new ErrorResponse("You do not have access to this project"));
             }
-            projectStatsRepository.deleteById(String.valueOf(id));
+            projectStatsService.deleteProject(project);
             log.info("Project with ID {} deleted", id);
             return ResponseEntity.ok("Project deleted");
         } catch (SecurityException e) {
@@ -163,20 +191,50 @@ public class ProjectStatsController {
     }
 
     @GetMapping
-    @Operation(summary = "Get all projects", description = "Retrieves all projects belonging to the authenticated user")
+    @Operation(summary = "Get all projects", description = "Retrieves a page of project summaries belonging to the authenticated user. " +
+            "Pass the X-Next-Cursor response header as afterId to get the next page; expand=true returns full projects with files and daily stats")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Projects retrieved successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProjectStats.class))),
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ProjectSummary.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid page parameters",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "401", description = "You are not authorized",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> getAllProjects() {
-        log.info("Fetching all projects");
+    public ResponseEntity<?> getAllProjects(@RequestParam(required = false) Long afterId,
+                                            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                            @RequestParam(defaultValue = "false") boolean expand) {
+        log.debug("Fetching projects after ID {} (limit {}, expand {})", afterId, limit, expand);
         try {
             String userEmail = AuthUtils.getAuthenticatedUserEmail();
-            List<ProjectStats> projects = projectStatsRepository.findByUserEmail(userEmail);
-            log.info("Retrieved {} projects for user {}", projects.size(), userEmail);
-            return ResponseEntity.ok(projects);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("Limit must be between 1 and " + MAX_PAGE_SIZE));
+            }
+
+            long cursor = afterId != null ? afterId : 0L;
+            Pageable page = PageRequest.of(0, limit);
+            List<?> projects;
+            Long lastId = null;
+            if (expand) {
+                List<ProjectStats> fullProjects = projectStatsService.findDetailedPage(userEmail, cursor, page);
+                if (!fullProjects.isEmpty()) {
+                    lastId = fullProjects.get(fullProjects.size() - 1).getId();
+                }
+                projects = fullProjects;
+            } else {
+                List<ProjectSummary> summaries = projectStatsRepository.findSummaries(userEmail, cursor, page);
+                if (!summaries.isEmpty()) {
+                    lastId = summaries.get(summaries.size() - 1).getId();
+                }
+                projects = summaries;
+            }
+            log.debug("Retrieved {} projects for user {}", projects.size(), userEmail);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (projects.size() == limit) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(lastId));
+            }
+            return response.body(projects);
         } catch (SecurityException e) {
             return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
         }
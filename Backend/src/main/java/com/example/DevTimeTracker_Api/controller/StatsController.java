@@ -0,0 +1,135 @@
+package com.example.DevTimeTracker_Api.controller;
+
+import com.example.DevTimeTracker_Api.dto.ActivityUpdate;
+import com.example.DevTimeTracker_Api.dto.DailyActivity;
+import com.example.DevTimeTracker_Api.dto.ErrorResponse;
+import com.example.DevTimeTracker_Api.dto.TodayStats;
+import com.example.DevTimeTracker_Api.service.ActivityStreamService;
+import com.example.DevTimeTracker_Api.service.LiveStatsService;
+import com.example.DevTimeTracker_Api.service.UserDailyStatsService;
+import com.example.DevTimeTracker_Api.utils.AuthUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+@Slf4j
+@Tag(name = "Stats", description = "API for aggregated activity statistics")
+public class StatsController {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_DAYS = 366;
+
+    @Autowired
+    private UserDailyStatsService userDailyStatsService;
+
+    @Autowired
+    private LiveStatsService liveStatsService;
+
+    @Autowired
+    private ActivityStreamService activityStreamService;
+
+    @GetMapping("/today")
+    @Operation(summary = "Get today's totals", description = "Returns coding/open time of the authenticated user for today, in total and per project. " +
+            "Served from in-memory counters that include heartbeats not yet written to the database")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Today's totals retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TodayStats.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> getTodayStats() {
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            return ResponseEntity.ok(liveStatsService.today(userEmail));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream live activity", description = "Server-Sent Events for dashboards. The first 'snapshot' event carries today's totals, " +
+            "then 'activity' events carry arrays of coding/open time deltas as heartbeats arrive. 'resync' means stats changed in bulk " +
+            "(project created or deleted, import) and should be re-read. A client that cannot keep up is disconnected and should reconnect")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream",
+                    content = @Content(mediaType = "text/event-stream", array = @ArraySchema(schema = @Schema(implementation = ActivityUpdate.class)))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Too many open streams for this user",
+                    content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<SseEmitter> streamActivity() {
+        try {
+            // SecurityContext не доступен в потоках отправки, поэтому email берётся здесь
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+            return ResponseEntity.ok(activityStreamService.subscribe(userEmail, () -> liveStatsService.today(userEmail)));
+        } catch (SecurityException e) {
+            return streamError(401, e.getMessage());
+        } catch (ActivityStreamService.TooManyConnectionsException e) {
+            return streamError(429, e.getMessage());
+        }
+    }
+
+    @GetMapping("/daily")
+    @Operation(summary = "Get daily totals", description = "Returns total coding/open time per day across all projects of the authenticated user. Defaults to the last 30 days")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Daily totals retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DailyActivity.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid date range",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "You are not authorized",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> getDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("Fetching daily stats from {} to {}", from, to);
+        try {
+            String userEmail = AuthUtils.getAuthenticatedUserEmail();
+
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+            if (start.isAfter(end)) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("'from' must not be after 'to'"));
+            }
+            if (ChronoUnit.DAYS.between(start, end) >= MAX_DAYS) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("Date range cannot exceed " + MAX_DAYS + " days"));
+            }
+
+            List<DailyActivity> days = userDailyStatsService.getDailyActivity(userEmail, start, end);
+            return ResponseEntity.ok(days);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(401).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    // Тип ответа фиксирован SseEmitter, поэтому ошибка уходит единственным событием error
+    private ResponseEntity<SseEmitter> streamError(int status, String message) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(new ErrorResponse(message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.status(status).body(emitter);
+    }
+}
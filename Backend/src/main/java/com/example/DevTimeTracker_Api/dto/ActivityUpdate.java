@@ -0,0 +1,23 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Дельта активности в потоке /api/stats/stream: сколько времени добавилось к файлу проекта за день
+@Data
+public class ActivityUpdate {
+    private String projectPath;
+    private String filePath;
+    private LocalDate date;
+    private long codingTime;
+    private long openTime;
+
+    public ActivityUpdate(String projectPath, String filePath, LocalDate date, long codingTime, long openTime) {
+        this.projectPath = projectPath;
+        this.filePath = filePath;
+        this.date = date;
+        this.codingTime = codingTime;
+        this.openTime = openTime;
+    }
+}
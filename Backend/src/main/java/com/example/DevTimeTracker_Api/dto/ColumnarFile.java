@@ -0,0 +1,23 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import lombok.Data;
+
+@Data
+public class ColumnarFile {
+    private Long id;
+    private String filePath;
+    private String type;
+    private long codingTime;
+    private long openTime;
+    private DailySeries daily;
+
+    public ColumnarFile(FileStats file) {
+        this.id = file.getId();
+        this.filePath = file.getFilePath();
+        this.type = file.getType();
+        this.codingTime = file.getCodingTime();
+        this.openTime = file.getOpenTime();
+        this.daily = DailySeries.of(file.getDailyStats());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ColumnarProject {
+    private Long id;
+    private String projectPath;
+    private long totalCodingTime;
+    private long totalOpenTime;
+    private DailySeries daily;
+    private List<ColumnarFile> files;
+
+    public ColumnarProject(ProjectStats project) {
+        this.id = project.getId();
+        this.projectPath = project.getProjectPath();
+        this.totalCodingTime = project.getTotalCodingTime();
+        this.totalOpenTime = project.getTotalOpenTime();
+        // В dailyStats проекта лежат и строки его файлов, в ряд проекта идут только агрегированные
+        this.daily = DailySeries.of(project.getDailyStats() == null ? null
+                : project.getDailyStats().stream().filter(daily -> daily.getFile() == null).toList());
+        this.files = project.getFiles() == null ? List.of() : project.getFiles().stream().map(ColumnarFile::new).toList();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class DailyActivity {
+    private LocalDate date;
+    private long codingTime;
+    private long openTime;
+
+    public DailyActivity(LocalDate date, long codingTime, long openTime) {
+        this.date = date;
+        this.codingTime = codingTime;
+        this.openTime = openTime;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Дневная статистика столбцами: дни как смещения от start и параллельные массивы значений
+// вместо объекта с именами полей на каждый день
+@Data
+public class DailySeries {
+    private LocalDate start;
+    private int[] days;
+    private long[] codingTime;
+    private long[] openTime;
+    // Строки без даты не ложатся на ось дней и суммируются отдельно
+    private long undatedCodingTime;
+    private long undatedOpenTime;
+
+    public static DailySeries of(List<DailyStats> dailyStats) {
+        DailySeries series = new DailySeries();
+        List<DailyStats> dated = new ArrayList<>();
+        if (dailyStats != null) {
+            for (DailyStats daily : dailyStats) {
+                if (daily.getDate() == null) {
+                    series.undatedCodingTime += daily.getCodingTime();
+                    series.undatedOpenTime += daily.getOpenTime();
+                } else {
+                    dated.add(daily);
+                }
+            }
+        }
+        dated.sort(Comparator.comparing(DailyStats::getDate));
+
+        series.days = new int[dated.size()];
+        series.codingTime = new long[dated.size()];
+        series.openTime = new long[dated.size()];
+        if (!dated.isEmpty()) {
+            series.start = dated.get(0).getDate();
+        }
+        for (int i = 0; i < dated.size(); i++) {
+            DailyStats daily = dated.get(i);
+            series.days[i] = (int) ChronoUnit.DAYS.between(series.start, daily.getDate());
+            series.codingTime[i] = daily.getCodingTime();
+            series.openTime[i] = daily.getOpenTime();
+        }
+        return series;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import java.time.LocalDate;
+
+// Проекция: суммы активности за один день
+public interface DailyTotals {
+    LocalDate getDate();
+
+    Long getCodingTime();
+
+    Long getOpenTime();
+}
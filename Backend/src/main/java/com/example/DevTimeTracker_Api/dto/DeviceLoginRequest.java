@@ -0,0 +1,11 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+@Data
+public class DeviceLoginRequest {
+    private String email;
+    private String password;
+    private String deviceName;
+    private String ide;
+}
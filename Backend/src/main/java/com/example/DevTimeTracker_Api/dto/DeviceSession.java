@@ -0,0 +1,26 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class DeviceSession {
+    private Long id;
+    private String deviceName;
+    private String ide;
+    private Instant createdAt;
+    private Instant lastUsedAt;
+    private Instant expiresAt;
+    private boolean active;
+
+    public DeviceSession(Long id, String deviceName, String ide, Instant createdAt, Instant lastUsedAt, Instant expiresAt, boolean active) {
+        this.id = id;
+        this.deviceName = deviceName;
+        this.ide = ide;
+        this.createdAt = createdAt;
+        this.lastUsedAt = lastUsedAt;
+        this.expiresAt = expiresAt;
+        this.active = active;
+    }
+}
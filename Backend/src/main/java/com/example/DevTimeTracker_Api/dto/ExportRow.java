@@ -0,0 +1,23 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Строка выгрузки: тот же формат, что принимают /api/heartbeats и /api/import
+@Data
+public class ExportRow {
+    private String projectPath;
+    private String filePath;
+    private LocalDate date;
+    private long codingTime;
+    private long openTime;
+
+    public ExportRow(String projectPath, String filePath, LocalDate date, long codingTime, long openTime) {
+        this.projectPath = projectPath;
+        this.filePath = filePath;
+        this.date = date;
+        this.codingTime = codingTime;
+        this.openTime = openTime;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class HeartbeatRequest {
+    // Длина колонок project_path и file_path: строка длиннее не запишется никогда
+    public static final int MAX_PATH_LENGTH = 255;
+
+    private String projectPath;
+    private String filePath;
+    private LocalDate date;
+    private long codingTime;
+    private long openTime;
+
+    // Общая проверка для /api/heartbeats и импорта; null, если запись корректна
+    public String validationError() {
+        if (projectPath == null || projectPath.isEmpty()) {
+            return "project path cannot be empty";
+        }
+        if (projectPath.length() > MAX_PATH_LENGTH) {
+            return "project path cannot be longer than " + MAX_PATH_LENGTH + " characters";
+        }
+        if (filePath == null || filePath.isEmpty()) {
+            return "file path cannot be empty";
+        }
+        if (filePath.length() > MAX_PATH_LENGTH) {
+            return "file path cannot be longer than " + MAX_PATH_LENGTH + " characters";
+        }
+        if (date == null) {
+            return "date is required";
+        }
+        if (codingTime < 0 || openTime < 0) {
+            return "time deltas cannot be negative";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+@Data
+public class HeartbeatResponse {
+    private int accepted;
+
+    public HeartbeatResponse(int accepted) {
+        this.accepted = accepted;
+    }
+}
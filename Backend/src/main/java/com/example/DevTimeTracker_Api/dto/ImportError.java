@@ -0,0 +1,14 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportError {
+    private long line;
+    private String message;
+
+    public ImportError(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+}
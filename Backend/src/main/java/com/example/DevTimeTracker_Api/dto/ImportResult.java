@@ -0,0 +1,20 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог импорта. committedLines — все строки до этой включительно уже записаны,
+// после сбоя импорт можно продолжить со следующей строки
+@Data
+public class ImportResult {
+    private long linesRead;
+    private long imported;
+    private long failed;
+    private long committedLines;
+    private int batches;
+    private List<ImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private String abortedReason;
+}
@@ -0,0 +1,17 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+// Время по одному проекту за день
+@Data
+public class ProjectActivity {
+    private String projectPath;
+    private long codingTime;
+    private long openTime;
+
+    public ProjectActivity(String projectPath, long codingTime, long openTime) {
+        this.projectPath = projectPath;
+        this.codingTime = codingTime;
+        this.openTime = openTime;
+    }
+}
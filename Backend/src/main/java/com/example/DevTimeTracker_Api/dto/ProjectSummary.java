@@ -0,0 +1,16 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import java.time.LocalDate;
+
+// Проекция для списка проектов: без файлов и дневной статистики
+public interface ProjectSummary {
+    Long getId();
+
+    String getProjectPath();
+
+    Long getTotalCodingTime();
+
+    Long getTotalOpenTime();
+
+    LocalDate getLastActiveDate();
+}
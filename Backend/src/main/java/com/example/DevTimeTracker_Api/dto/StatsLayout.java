@@ -0,0 +1,17 @@
+package com.example.DevTimeTracker_Api.dto;
+
+// full - сущности как есть, columnar - дневная статистика параллельными массивами (ColumnarProject/ColumnarFile)
+public enum StatsLayout {
+    FULL,
+    COLUMNAR;
+
+    // null для неизвестного значения
+    public static StatsLayout parse(String value) {
+        for (StatsLayout layout : values()) {
+            if (layout.name().equalsIgnoreCase(value)) {
+                return layout;
+            }
+        }
+        return null;
+    }
+}
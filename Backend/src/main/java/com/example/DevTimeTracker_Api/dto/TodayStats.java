@@ -0,0 +1,22 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Живые счётчики за сегодня: всего и по проектам, проекты по убыванию времени
+@Data
+public class TodayStats {
+    private LocalDate date;
+    private long codingTime;
+    private long openTime;
+    private List<ProjectActivity> projects;
+
+    public TodayStats(LocalDate date, long codingTime, long openTime, List<ProjectActivity> projects) {
+        this.date = date;
+        this.codingTime = codingTime;
+        this.openTime = openTime;
+        this.projects = projects;
+    }
+}
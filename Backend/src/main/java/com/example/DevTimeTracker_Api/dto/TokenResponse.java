@@ -0,0 +1,22 @@
+package com.example.DevTimeTracker_Api.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class TokenResponse {
+    private String accessToken;
+    private long expiresIn; // секунды до истечения access-токена
+    private String refreshToken;
+    private Instant refreshTokenExpiresAt;
+    private Long deviceId;
+
+    public TokenResponse(String accessToken, long expiresIn, String refreshToken, Instant refreshTokenExpiresAt, Long deviceId) {
+        this.accessToken = accessToken;
+        this.expiresIn = expiresIn;
+        this.refreshToken = refreshToken;
+        this.refreshTokenExpiresAt = refreshTokenExpiresAt;
+        this.deviceId = deviceId;
+    }
+}
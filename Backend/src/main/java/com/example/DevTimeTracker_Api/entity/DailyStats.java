@@ -5,15 +5,25 @@ import lombok.Data;
 import lombok.ToString;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
+import java.time.LocalDate;
+
 @Entity
 @Data
 @ToString(exclude = {"project", "file"}) // Исключаем ссылки на ProjectStats и FileStats
+// Выборки за период идут по индексам (project_id, date) и (file_id, date). Второй уникален: по нему
+// складываются дневные строки файлов. Для строк проекта (file_id IS NULL) частичный уникальный индекс
+// создаёт UniqueKeyMigration, JPA такие не описывает
+@Table(name = "daily_stats", indexes = {
+        @Index(name = "idx_daily_stats_project_date", columnList = "project_id, date"),
+        @Index(name = "idx_daily_stats_file_date", columnList = "file_id, date", unique = true)
+})
 public class DailyStats {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_stats_seq")
+    @SequenceGenerator(name = "daily_stats_seq", sequenceName = "daily_stats_seq", allocationSize = 50)
     private Long id;
 
-    private String date;
+    private LocalDate date;
     private long codingTime;
     private long openTime;
 
@@ -2,7 +2,12 @@ package com.example.DevTimeTracker_Api.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+import java.time.Instant;
+
+// Устройство с IDE одновременно является долгоживущей сессией: refresh-токен привязан к записи
 @Entity
 @Data
 public class Device {
@@ -15,5 +20,19 @@ public class Device {
 
     @ManyToOne
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
+
+    // jti последнего выданного refresh-токена; предыдущие после ротации недействительны
+    private String refreshTokenId;
+
+    private Instant createdAt;
+    private Instant lastUsedAt;
+    private Instant expiresAt;
+    private Instant revokedAt;
+
+    public boolean isActive(Instant now) {
+        return revokedAt == null && expiresAt != null && expiresAt.isAfter(now);
+    }
 }
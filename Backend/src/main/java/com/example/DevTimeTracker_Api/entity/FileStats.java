@@ -11,9 +11,19 @@ import java.util.List;
 @Entity
 @Data
 @ToString(exclude = {"project", "dailyStats"}) // Исключаем ссылки на ProjectStats и DailyStats
+@NamedEntityGraph(name = "FileStats.withDailyStats", attributeNodes = @NamedAttributeNode("dailyStats"))
+@NamedEntityGraph(name = "FileStats.detail", attributeNodes = {
+        @NamedAttributeNode("dailyStats"),
+        @NamedAttributeNode(value = "project", subgraph = "project")
+}, subgraphs = @NamedSubgraph(name = "project", attributeNodes = @NamedAttributeNode("gitHubBadge")))
+@NamedEntityGraph(name = "FileStats.withProject",
+        attributeNodes = @NamedAttributeNode(value = "project", subgraph = "project"),
+        subgraphs = @NamedSubgraph(name = "project", attributeNodes = @NamedAttributeNode("gitHubBadge")))
+@Table(uniqueConstraints = @UniqueConstraint(name = "ux_file_stats_project_path", columnNames = {"project_id", "file_path"}))
 public class FileStats {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_stats_seq")
+    @SequenceGenerator(name = "file_stats_seq", sequenceName = "file_stats_seq", allocationSize = 50)
     private Long id;
 
     private String filePath;
@@ -1,10 +1,15 @@
 package com.example.DevTimeTracker_Api.entity;
 
+import com.example.DevTimeTracker_Api.service.BadgeCacheEvictionListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
 @Data
+@EntityListeners(BadgeCacheEvictionListener.class)
 public class GitHubBadge {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,7 +18,11 @@ public class GitHubBadge {
     private boolean isPublic;
     private long totalCodingTime;
 
+    // Проект сериализуется вместе с бейджем, обратная ссылка дала бы бесконечную рекурсию
     @OneToOne
     @JoinColumn(name = "project_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private ProjectStats project;
 }
@@ -1,5 +1,6 @@
 package com.example.DevTimeTracker_Api.entity;
 
+import com.example.DevTimeTracker_Api.service.BadgeCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.ToString;
@@ -9,10 +10,21 @@ import java.util.List;
 
 @Entity
 @Data
+@EntityListeners(BadgeCacheEvictionListener.class)
 @ToString(exclude = {"files", "dailyStats", "gitHubBadge"}) // Исключаем коллекции и ссылки
+// Два bag-а нельзя тянуть одним запросом, поэтому files и dailyStats грузятся отдельными планами
+@NamedEntityGraph(name = "ProjectStats.withBadge", attributeNodes = @NamedAttributeNode("gitHubBadge"))
+@NamedEntityGraph(name = "ProjectStats.withFiles", attributeNodes = {
+        @NamedAttributeNode("files"),
+        @NamedAttributeNode("gitHubBadge")
+})
+@NamedEntityGraph(name = "ProjectStats.withDailyStats", attributeNodes = @NamedAttributeNode("dailyStats"))
+// Ключ для INSERT ... ON CONFLICT; на старых базах дубли сливает UniqueKeyMigration
+@Table(uniqueConstraints = @UniqueConstraint(name = "ux_project_stats_user_path", columnNames = {"user_email", "project_path"}))
 public class ProjectStats {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_stats_seq")
+    @SequenceGenerator(name = "project_stats_seq", sequenceName = "project_stats_seq", allocationSize = 50)
     private Long id;
 
     private String projectPath;
@@ -1,5 +1,6 @@
 package com.example.DevTimeTracker_Api.entity;
 
+import com.example.DevTimeTracker_Api.security.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
@@ -11,6 +12,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
 @Data // Lombok annotation to generate getters, setters, toString, equals, and hashCode
 public class User implements UserDetails {
     @Id
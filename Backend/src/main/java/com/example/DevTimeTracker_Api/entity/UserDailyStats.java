@@ -0,0 +1,26 @@
+package com.example.DevTimeTracker_Api.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Сводка активности пользователя по дням во всех проектах, обновляется при записи DailyStats
+@Entity
+@Table(name = "user_daily_stats", uniqueConstraints = @UniqueConstraint(columnNames = {"user_email", "date"}))
+@Data
+public class UserDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_daily_stats_seq")
+    @SequenceGenerator(name = "user_daily_stats_seq", sequenceName = "user_daily_stats_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userEmail;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private long codingTime;
+    private long openTime;
+}
@@ -1,7 +1,44 @@
 package com.example.DevTimeTracker_Api.repository;
 
+import com.example.DevTimeTracker_Api.dto.DailyTotals;
+import com.example.DevTimeTracker_Api.dto.ExportRow;
+import com.example.DevTimeTracker_Api.dto.ProjectActivity;
 import com.example.DevTimeTracker_Api.entity.DailyStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface DailyStatsRepository extends JpaRepository<DailyStats, Long> {
+    // Границы для периода, открытого с одной стороны; укладываются в тип date PostgreSQL
+    LocalDate EARLIEST_DATE = LocalDate.of(1, 1, 1);
+    LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
+    // Выборки за период: range scan по (project_id, date) и (file_id, date)
+    List<DailyStats> findByProjectIdAndFileIsNullAndDateBetweenOrderByDateAsc(Long projectId, LocalDate from, LocalDate to);
+
+    List<DailyStats> findByProjectIdAndFileIsNotNullAndDateBetweenOrderByDateAsc(Long projectId, LocalDate from, LocalDate to);
+
+    List<DailyStats> findByFileIdAndDateBetweenOrderByDateAsc(Long fileId, LocalDate from, LocalDate to);
+
+    @Query("SELECT d.date AS date, SUM(d.codingTime) AS codingTime, SUM(d.openTime) AS openTime " +
+            "FROM DailyStats d WHERE d.project.id = :projectId AND d.file IS NOT NULL GROUP BY d.date")
+    List<DailyTotals> sumFileActivityByDate(@Param("projectId") Long projectId);
+
+    // Агрегированные строки проектов пользователя за день: затравка живых счётчиков
+    @Query("SELECT new com.example.DevTimeTracker_Api.dto.ProjectActivity(p.projectPath, d.codingTime, d.openTime) " +
+            "FROM DailyStats d JOIN d.project p WHERE p.userEmail = :userEmail AND d.date = :date AND d.file IS NULL")
+    List<ProjectActivity> findProjectActivity(@Param("userEmail") String userEmail, @Param("date") LocalDate date);
+
+    // Курсор с fetch size вместо загрузки всего результата; закрывать Stream обязательно
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.DevTimeTracker_Api.dto.ExportRow(p.projectPath, f.filePath, d.date, d.codingTime, d.openTime) " +
+            "FROM DailyStats d JOIN d.file f JOIN f.project p WHERE p.userEmail = :userEmail ORDER BY p.id, f.id, d.date")
+    Stream<ExportRow> streamFileActivity(@Param("userEmail") String userEmail);
 }
@@ -0,0 +1,35 @@
+package com.example.DevTimeTracker_Api.repository;
+
+import com.example.DevTimeTracker_Api.entity.Device;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface DeviceRepository extends JpaRepository<Device, Long> {
+
+    @Query("SELECT d FROM Device d JOIN FETCH d.user WHERE d.id = :id")
+    Optional<Device> findWithUserById(@Param("id") Long id);
+
+    Optional<Device> findFirstByUserEmailAndDeviceNameAndIde(String email, String deviceName, String ide);
+
+    List<Device> findByUserEmailOrderByLastUsedAtDesc(String email);
+
+    @Query("SELECT COUNT(d) > 0 FROM Device d WHERE d.id = :id AND d.revokedAt IS NULL AND d.expiresAt > :now")
+    boolean isActive(@Param("id") Long id, @Param("now") Instant now);
+
+    // Ротация срабатывает только для текущего jti: из двух одновременных обменов одного токена пройдёт один
+    @Modifying
+    @Query("UPDATE Device d SET d.refreshTokenId = :newTokenId, d.lastUsedAt = :now, d.expiresAt = :expiresAt " +
+            "WHERE d.id = :id AND d.refreshTokenId = :oldTokenId AND d.revokedAt IS NULL")
+    int rotate(@Param("id") Long id, @Param("oldTokenId") String oldTokenId, @Param("newTokenId") String newTokenId,
+               @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("UPDATE Device d SET d.revokedAt = :now, d.refreshTokenId = NULL WHERE d.id = :id AND d.revokedAt IS NULL")
+    int revoke(@Param("id") Long id, @Param("now") Instant now);
+}
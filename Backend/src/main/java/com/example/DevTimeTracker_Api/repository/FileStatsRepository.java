@@ -1,7 +1,21 @@
 package com.example.DevTimeTracker_Api.repository;
 
 import com.example.DevTimeTracker_Api.entity.FileStats;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface FileStatsRepository extends JpaRepository<FileStats, Long> {
+    @EntityGraph("FileStats.detail")
+    Optional<FileStats> findDetailedById(Long id);
+
+    // Без дневной статистики: её за нужный период подгружает отдельный запрос
+    @EntityGraph("FileStats.withProject")
+    Optional<FileStats> findWithProjectById(Long id);
+
+    @EntityGraph("FileStats.withDailyStats")
+    List<FileStats> findWithDailyStatsByProjectIdIn(Collection<Long> projectIds);
 }
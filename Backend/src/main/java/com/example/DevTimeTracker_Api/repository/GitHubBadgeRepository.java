@@ -0,0 +1,13 @@
+package com.example.DevTimeTracker_Api.repository;
+
+import com.example.DevTimeTracker_Api.entity.GitHubBadge;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface GitHubBadgeRepository extends JpaRepository<GitHubBadge, Long> {
+
+    @EntityGraph(attributePaths = "project")
+    Optional<GitHubBadge> findByProjectId(Long projectId);
+}
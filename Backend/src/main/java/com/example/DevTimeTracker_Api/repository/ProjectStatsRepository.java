@@ -1,10 +1,39 @@
 package com.example.DevTimeTracker_Api.repository;
 
+import com.example.DevTimeTracker_Api.dto.ProjectSummary;
 import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProjectStatsRepository extends JpaRepository<ProjectStats, String> {
+    // Инкремент в самой базе: параллельные записи с разных устройств не затирают друг друга
+    @Modifying
+    @Query("UPDATE ProjectStats p SET p.totalCodingTime = p.totalCodingTime + :codingTime, " +
+            "p.totalOpenTime = p.totalOpenTime + :openTime WHERE p.id = :id")
+    int addTotals(@Param("id") Long id, @Param("codingTime") long codingTime, @Param("openTime") long openTime);
+
     List<ProjectStats> findByUserEmail(String userEmail);
+
+    @EntityGraph("ProjectStats.withBadge")
+    List<ProjectStats> findByUserEmailAndIdGreaterThanOrderByIdAsc(String userEmail, Long afterId, Pageable pageable);
+
+    @EntityGraph("ProjectStats.withFiles")
+    List<ProjectStats> findWithFilesByIdIn(Collection<Long> ids);
+
+    @EntityGraph("ProjectStats.withDailyStats")
+    List<ProjectStats> findWithDailyStatsByIdIn(Collection<Long> ids);
+
+    // Keyset-пагинация по id; дата последней активности берётся из агрегированных строк проекта
+    @Query("SELECT p.id AS id, p.projectPath AS projectPath, p.totalCodingTime AS totalCodingTime, " +
+            "p.totalOpenTime AS totalOpenTime, " +
+            "(SELECT MAX(d.date) FROM DailyStats d WHERE d.project = p AND d.file IS NULL) AS lastActiveDate " +
+            "FROM ProjectStats p WHERE p.userEmail = :userEmail AND p.id > :afterId ORDER BY p.id")
+    List<ProjectSummary> findSummaries(@Param("userEmail") String userEmail, @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,120 @@
+package com.example.DevTimeTracker_Api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Запись статистики с нескольких устройств одновременно: строки создаются и складываются через
+// INSERT ... ON CONFLICT по уникальным ключам (user_email, project_path), (project_id, file_path), (file_id, date).
+// Вызывающий передаёт строки отсортированными, чтобы параллельные транзакции блокировали их в одном порядке
+@Repository
+public class StatsUpsertRepository {
+
+    public record DailyRow(long projectId, Long fileId, LocalDate date, long codingTime, long openTime) {
+    }
+
+    public record TotalsRow(long id, long codingTime, long openTime) {
+    }
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String ADD_DAILY = "INSERT INTO daily_stats (id, project_id, file_id, date, coding_time, open_time) " +
+            "VALUES (nextval('daily_stats_seq'), ?, ?, ?, ?, ?) ";
+    private static final String ADD_TIME = "DO UPDATE SET coding_time = daily_stats.coding_time + EXCLUDED.coding_time, " +
+            "open_time = daily_stats.open_time + EXCLUDED.open_time";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StatsUpsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // id нового проекта или null, если проект уже есть. При гонке INSERT ждёт коммита первой транзакции
+    public Long insertProjectIfAbsent(String userEmail, String projectPath) {
+        List<Long> ids = jdbcTemplate.queryForList("INSERT INTO project_stats (id, user_email, project_path, total_coding_time, total_open_time) " +
+                "VALUES (nextval('project_stats_seq'), ?, ?, 0, 0) ON CONFLICT (user_email, project_path) DO NOTHING RETURNING id",
+                Long.class, userEmail, projectPath);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public long findProjectId(String userEmail, String projectPath) {
+        return jdbcTemplate.queryForObject("SELECT id FROM project_stats WHERE user_email = ? AND project_path = ?",
+                Long.class, userEmail, projectPath);
+    }
+
+    public long upsertProject(String userEmail, String projectPath) {
+        Long id = insertProjectIfAbsent(userEmail, projectPath);
+        return id != null ? id : findProjectId(userEmail, projectPath);
+    }
+
+    // id файлов проекта по путям; недостающие создаются одним батчем
+    public Map<String, Long> upsertFiles(long projectId, Collection<String> filePaths) {
+        List<String> sorted = List.copyOf(new TreeSet<>(filePaths));
+        jdbcTemplate.batchUpdate("INSERT INTO file_stats (id, project_id, file_path, coding_time, open_time) " +
+                        "VALUES (nextval('file_stats_seq'), ?, ?, 0, 0) ON CONFLICT (project_id, file_path) DO NOTHING",
+                sorted, BATCH_SIZE, (ps, filePath) -> {
+                    ps.setLong(1, projectId);
+                    ps.setString(2, filePath);
+                });
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT file_path, id FROM file_stats WHERE project_id = ? AND file_path = ANY (?)");
+            Array paths = connection.createArrayOf("varchar", sorted.toArray());
+            statement.setLong(1, projectId);
+            statement.setArray(2, paths);
+            return statement;
+        }, (ResultSet rs) -> {
+            ids.put(rs.getString(1), rs.getLong(2));
+        });
+        return ids;
+    }
+
+    public void addFileDailies(List<DailyRow> rows) {
+        addDailies(ADD_DAILY + "ON CONFLICT (file_id, date) " + ADD_TIME, rows);
+    }
+
+    // Агрегированные строки проекта (file_id IS NULL) уникальны по частичному индексу
+    public void addProjectDailies(List<DailyRow> rows) {
+        addDailies(ADD_DAILY + "ON CONFLICT (project_id, date) WHERE file_id IS NULL " + ADD_TIME, rows);
+    }
+
+    public void addFileTotals(List<TotalsRow> rows) {
+        jdbcTemplate.batchUpdate("UPDATE file_stats SET coding_time = coding_time + ?, open_time = open_time + ? WHERE id = ?",
+                rows, BATCH_SIZE, (ps, row) -> {
+                    ps.setLong(1, row.codingTime());
+                    ps.setLong(2, row.openTime());
+                    ps.setLong(3, row.id());
+                });
+    }
+
+    // Тип файла задаётся только при записи файла целиком; строка уже заблокирована addFileTotals
+    public void setFileType(long fileId, String type) {
+        jdbcTemplate.update("UPDATE file_stats SET type = ? WHERE id = ? AND type IS DISTINCT FROM ?", type, fileId, type);
+    }
+
+    private void addDailies(String sql, List<DailyRow> rows) {
+        jdbcTemplate.batchUpdate(sql, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.projectId());
+            if (row.fileId() != null) {
+                ps.setLong(2, row.fileId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setObject(3, row.date());
+            ps.setLong(4, row.codingTime());
+            ps.setLong(5, row.openTime());
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.DevTimeTracker_Api.repository;
+
+import com.example.DevTimeTracker_Api.entity.UserDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStats, Long> {
+    List<UserDailyStats> findByUserEmailAndDateBetweenOrderByDateAsc(String userEmail, LocalDate from, LocalDate to);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_stats (id, user_email, date, coding_time, open_time) " +
+            "VALUES (nextval('user_daily_stats_seq'), :userEmail, :date, :codingTime, :openTime) " +
+            "ON CONFLICT (user_email, date) DO UPDATE SET " +
+            "coding_time = user_daily_stats.coding_time + EXCLUDED.coding_time, " +
+            "open_time = user_daily_stats.open_time + EXCLUDED.open_time", nativeQuery = true)
+    void addActivity(@Param("userEmail") String userEmail, @Param("date") LocalDate date,
+                     @Param("codingTime") long codingTime, @Param("openTime") long openTime);
+}
@@ -0,0 +1,102 @@
+package com.example.DevTimeTracker_Api.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Кэш уже проверенных токенов: на горячем пути JwtFilter не парсит токен и не ходит в базу
+@Component
+public class JwtAuthenticationCache {
+
+    private record Entry(UserDetails userDetails, Long deviceId, long expiresAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Отозванные сессии устройств на ttl: JwtFilter мог проверить устройство до коммита отзыва,
+    // и такой токен не должен попасть в кэш уже после evictDevice
+    private final ConcurrentHashMap<Long, Long> revokedDevices = new ConcurrentHashMap<>();
+
+    public JwtAuthenticationCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                                  @Value("${jwt.cache.ttl-ms:300000}") long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public UserDetails get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.userDetails();
+    }
+
+    public void put(String token, UserDetails userDetails, Date tokenExpiration) {
+        put(token, userDetails, tokenExpiration, null);
+    }
+
+    // Запись живёт не дольше самого токена и не дольше ttl, чтобы изменения пользователя подхватывались
+    public void put(String token, UserDetails userDetails, Date tokenExpiration, Long deviceId) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(tokenExpiration.getTime(), now + ttlMillis);
+        if (expiresAt <= now || isRevoked(deviceId, now)) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            evictOverflow();
+        }
+        entries.put(token, new Entry(userDetails, deviceId, expiresAt));
+        // Отзыв мог пройти между проверкой и вставкой: evictDevice сначала помечает устройство, потом чистит записи
+        if (isRevoked(deviceId, now)) {
+            entries.remove(token);
+        }
+    }
+
+    public void evictUser(String username) {
+        entries.values().removeIf(entry -> entry.userDetails().getUsername().equals(username));
+    }
+
+    public void evictDevice(Long deviceId) {
+        revokedDevices.put(deviceId, System.currentTimeMillis() + ttlMillis);
+        entries.values().removeIf(entry -> deviceId.equals(entry.deviceId()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        revokedDevices.values().removeIf(until -> until <= now);
+    }
+
+    private boolean isRevoked(Long deviceId, long now) {
+        if (deviceId == null) {
+            return false;
+        }
+        Long until = revokedDevices.get(deviceId);
+        return until != null && until > now;
+    }
+
+    // Порядок обхода ConcurrentHashMap произвольный, так что вытесняются случайные записи
+    private void evictOverflow() {
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
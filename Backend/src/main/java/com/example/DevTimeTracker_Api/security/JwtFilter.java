@@ -1,11 +1,18 @@
 package com.example.DevTimeTracker_Api.security;
 
+import com.example.DevTimeTracker_Api.service.DeviceSessionService;
+import com.example.DevTimeTracker_Api.utils.JwtClaims;
 import com.example.DevTimeTracker_Api.utils.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -17,6 +24,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 @Component
+@Slf4j
 public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
@@ -24,21 +32,32 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private JwtAuthenticationCache authenticationCache;
+
+    @Autowired
+    private DeviceSessionService deviceSessionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String jwt = null;
-        String email = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            email = jwtUtil.extractUsername(jwt);
-        }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authHeader.substring(7);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            UserDetails userDetails = authenticationCache.get(jwt);
+            String cache = userDetails != null ? "hit" : "miss";
+            if (userDetails == null) {
+                userDetails = authenticate(jwt);
+            }
+            sample.stop(meterRegistry.timer("auth.jwt.validation",
+                    "cache", cache, "outcome", userDetails != null ? "authenticated" : "rejected"));
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -47,4 +66,35 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    // Полная проверка при промахе кэша: подпись, срок действия и пользователь из базы
+    private UserDetails authenticate(String jwt) {
+        JwtClaims claims;
+        try {
+            claims = jwtUtil.parseToken(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Запрос пойдёт дальше анонимным, доступ решит SecurityConfig
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+        // Refresh-токен не даёт доступа к API, его обменивают только на /api/auth/refresh
+        if (claims.subject() == null || claims.expiration() == null || claims.isExpired() || claims.isRefreshToken()) {
+            return null;
+        }
+        // Access-токен сессии устройства перестаёт действовать вместе с сессией; отзыв сбрасывает его и из кэша
+        if (claims.deviceId() != null && !deviceSessionService.isActive(claims.deviceId())) {
+            return null;
+        }
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(claims.subject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        if (!claims.subject().equals(userDetails.getUsername())) {
+            return null;
+        }
+        authenticationCache.put(jwt, userDetails, claims.expiration(), claims.deviceId());
+        return userDetails;
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.DevTimeTracker_Api.security;
+
+// Пул хеширования паролей переполнен или не успел обработать запрос: клиенту отвечают 429
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
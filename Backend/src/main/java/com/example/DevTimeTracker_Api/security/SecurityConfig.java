@@ -1,5 +1,7 @@
 package com.example.DevTimeTracker_Api.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -25,8 +27,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(
-                                "/api/auth/register", "/api/auth/login", "/", "/index.html",
-                                "/static/**", "/swagger-ui/**", "/v3/api-docs/**", "/api-docs"
+                                "/api/auth/register", "/api/auth/login", "/api/auth/device-login", "/api/auth/refresh", "/api/auth/logout", "/", "/index.html",
+                                "/static/**", "/api/badges/*.svg", "/swagger-ui/**", "/v3/api-docs/**", "/api-docs"
                         ).permitAll().anyRequest().permitAll()
 //                        .anyRequest().authenticated() // Требовать токен для остальных маршрутов
                 )
@@ -45,7 +47,11 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+                                           @Value("${auth.hashing.threads:2}") int threads,
+                                           @Value("${auth.hashing.queue-capacity:50}") int queueCapacity,
+                                           @Value("${auth.hashing.timeout-ms:5000}") long timeoutMillis,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity, timeoutMillis, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.DevTimeTracker_Api.security;
+
+import com.example.DevTimeTracker_Api.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+// Сбрасывает закэшированные токены пользователя при смене пароля или удалении
+@Component
+public class UserCacheEvictionListener {
+    private final JwtAuthenticationCache authenticationCache;
+
+    public UserCacheEvictionListener(JwtAuthenticationCache authenticationCache) {
+        this.authenticationCache = authenticationCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        authenticationCache.evictUser(user.getEmail());
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.HeartbeatRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Write-behind буфер: схлопывает дельты по (user, project, file, date) в памяти
+// и пишет их в базу пачками по таймеру или по достижении порога
+@Service
+@Slf4j
+public class ActivityBuffer {
+    private final ActivityService activityService;
+    private final LiveStatsService liveStatsService;
+    private final ActivityStreamService activityStreamService;
+    private final int maxPendingKeys;
+    private final int flushThreshold;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<ActivityKey, ActivityDelta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final ExecutorService flushExecutor;
+    private volatile boolean closed;
+
+    public ActivityBuffer(ActivityService activityService,
+                          LiveStatsService liveStatsService,
+                          ActivityStreamService activityStreamService,
+                          @Value("${ingestion.buffer.max-pending-keys:100000}") int maxPendingKeys,
+                          @Value("${ingestion.buffer.flush-threshold:5000}") int flushThreshold,
+                          @Value("${ingestion.buffer.batch-size:500}") int batchSize,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.activityService = activityService;
+        this.liveStatsService = liveStatsService;
+        this.activityStreamService = activityStreamService;
+        this.maxPendingKeys = maxPendingKeys;
+        this.flushThreshold = flushThreshold;
+        this.batchSize = batchSize;
+        // Один поток сброса в обоих режимах: flush всё равно сериализован flushLock
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("activity-flush").factory()
+                : Thread.ofPlatform().name("activity-flush").daemon(true).factory();
+        this.flushExecutor = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    // Возвращает false, ничего не буферизуя, если буфер переполнен или закрывается
+    public boolean offer(String userEmail, List<HeartbeatRequest> heartbeats) {
+        if (closed) {
+            return false;
+        }
+
+        Map<ActivityKey, ActivityDelta> deltas = new LinkedHashMap<>();
+        for (HeartbeatRequest heartbeat : heartbeats) {
+            ActivityKey key = new ActivityKey(userEmail, heartbeat.getProjectPath(), heartbeat.getFilePath(), heartbeat.getDate());
+            deltas.merge(key, new ActivityDelta(heartbeat.getCodingTime(), heartbeat.getOpenTime()), ActivityDelta::plus);
+        }
+
+        // Лимит мягкий: параллельные запросы могут немного его превысить
+        int newKeys = 0;
+        for (ActivityKey key : deltas.keySet()) {
+            if (!pending.containsKey(key)) {
+                newKeys++;
+            }
+        }
+        if (pending.size() + newKeys > maxPendingKeys) {
+            log.warn("Activity buffer is full ({} pending keys), rejecting {} heartbeats", pending.size(), heartbeats.size());
+            requestFlush();
+            return false;
+        }
+
+        // Затравка живых счётчиков - до любых изменений, её сбой не оставит в буфере половину запроса
+        liveStatsService.prepare(userEmail, deltas.keySet().stream().map(ActivityKey::date).collect(Collectors.toSet()));
+        // Счётчики и публикация - атомарно относительно snapshot-а, который получает новый подписчик
+        activityStreamService.publish(userEmail, deltas, () -> deltas.forEach((key, delta) -> {
+            liveStatsService.record(key.userEmail(), key.projectPath(), key.date(), delta.codingTime(), delta.openTime());
+            pending.merge(key, delta, ActivityDelta::plus);
+        }));
+        if (pending.size() >= flushThreshold) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getDeadLetterCount() {
+        return deadLettered.get();
+    }
+
+    @Scheduled(fixedDelayString = "${ingestion.buffer.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            // Сливаем только то, что было в буфере на момент старта, чтобы не крутиться бесконечно под нагрузкой
+            int remaining = pending.size();
+            while (remaining > 0) {
+                Map<ActivityKey, ActivityDelta> batch = drain(Math.min(batchSize, remaining));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                remaining -= batch.size();
+                if (!apply(batch)) {
+                    break;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closed = true;
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        if (!pending.isEmpty()) {
+            log.error("{} activity deltas could not be flushed on shutdown", pending.size());
+        }
+    }
+
+    private void requestFlush() {
+        if (closed || !flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // Экзекьютор уже остановлен, оставшееся сольёт shutdown()
+            flushRequested.set(false);
+        }
+    }
+
+    // false - сбой не из-за данных (база недоступна и т.п.): пачка возвращена в буфер, сброс откладывается.
+    // Нарушение ограничений - вина конкретных строк: пачка делится пополам, пока они не останутся по одной,
+    // и такие строки уходят в dead letter, иначе одна плохая строка навсегда остановила бы сброс всего буфера
+    private boolean apply(Map<ActivityKey, ActivityDelta> batch) {
+        try {
+            activityService.applyDeltas(batch);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                batch.forEach((key, delta) -> log.error("Dropping activity delta {} of {} that cannot be written: {}",
+                        delta, key, e.getMostSpecificCause().getMessage()));
+                deadLettered.incrementAndGet();
+                return true;
+            }
+            log.warn("Failed to flush {} activity deltas, splitting the batch to find rejected rows", batch.size());
+            List<Map.Entry<ActivityKey, ActivityDelta>> entries = new ArrayList<>(batch.entrySet());
+            Map<ActivityKey, ActivityDelta> second = slice(entries, entries.size() / 2, entries.size());
+            if (!apply(slice(entries, 0, entries.size() / 2))) {
+                requeue(second);
+                return false;
+            }
+            return apply(second);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} activity deltas, returning them to the buffer", batch.size(), e);
+            requeue(batch);
+            return false;
+        }
+    }
+
+    private void requeue(Map<ActivityKey, ActivityDelta> batch) {
+        batch.forEach((key, delta) -> pending.merge(key, delta, ActivityDelta::plus));
+    }
+
+    private static Map<ActivityKey, ActivityDelta> slice(List<Map.Entry<ActivityKey, ActivityDelta>> entries, int from, int to) {
+        Map<ActivityKey, ActivityDelta> batch = new LinkedHashMap<>();
+        for (Map.Entry<ActivityKey, ActivityDelta> entry : entries.subList(from, to)) {
+            batch.put(entry.getKey(), entry.getValue());
+        }
+        return batch;
+    }
+
+    private Map<ActivityKey, ActivityDelta> drain(int limit) {
+        Map<ActivityKey, ActivityDelta> batch = new LinkedHashMap<>();
+        for (ActivityKey key : pending.keySet()) {
+            if (batch.size() >= limit) {
+                break;
+            }
+            ActivityDelta delta = pending.remove(key);
+            if (delta != null) {
+                batch.put(key, delta);
+            }
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.DevTimeTracker_Api.service;
+
+public record ActivityDelta(long codingTime, long openTime) {
+
+    public ActivityDelta plus(ActivityDelta other) {
+        return new ActivityDelta(codingTime + other.codingTime, openTime + other.openTime);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.ExportRow;
+import com.example.DevTimeTracker_Api.repository.DailyStatsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Выгрузка файловой дневной статистики пользователя прямо из курсора базы:
+// строки не копятся ни в памяти приложения, ни в persistence context
+@Service
+public class ActivityExportService {
+    private static final String CSV_HEADER = "projectPath,filePath,date,codingTime,openTime";
+
+    private final DailyStatsRepository dailyStatsRepository;
+    private final ObjectMapper objectMapper;
+
+    public ActivityExportService(DailyStatsRepository dailyStatsRepository, ObjectMapper objectMapper) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Курсор PostgreSQL живёт только внутри транзакции, поэтому запись идёт в ней же. Возвращает число строк
+    @Transactional(readOnly = true)
+    public long export(String userEmail, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<ExportRow> rows = dailyStatsRepository.streamFileActivity(userEmail)) {
+            return format == ExportFormat.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+        }
+    }
+
+    private long writeNdjson(Iterator<ExportRow> rows, OutputStream out) throws IOException {
+        // SequenceWriter не закрывается: поток ответа закрывает Spring
+        SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+        long count = 0;
+        while (rows.hasNext()) {
+            writer.write(rows.next());
+            count++;
+        }
+        writer.flush();
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<ExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (rows.hasNext()) {
+            ExportRow row = rows.next();
+            writer.write(csvField(row.getProjectPath()));
+            writer.write(',');
+            writer.write(csvField(row.getFilePath()));
+            writer.write(',');
+            writer.write(row.getDate() != null ? row.getDate().toString() : "");
+            writer.write(',');
+            writer.write(Long.toString(row.getCodingTime()));
+            writer.write(',');
+            writer.write(Long.toString(row.getOpenTime()));
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.HeartbeatRequest;
+import com.example.DevTimeTracker_Api.dto.ImportError;
+import com.example.DevTimeTracker_Api.dto.ImportResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Импорт истории в формате NDJSON: по записи HeartbeatRequest на строку.
+// В памяти только текущая строка и одна пачка схлопнутых дельт, каждая пачка пишется своей транзакцией
+@Service
+@Slf4j
+public class ActivityImportService {
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final ActivityService activityService;
+    private final LiveStatsService liveStatsService;
+    private final ActivityStreamService activityStreamService;
+    private final ObjectReader heartbeatReader;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ActivityImportService(ActivityService activityService,
+                                 LiveStatsService liveStatsService,
+                                 ActivityStreamService activityStreamService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${import.batch-size:1000}") int batchSize,
+                                 @Value("${import.max-reported-errors:100}") int maxReportedErrors) {
+        this.activityService = activityService;
+        this.liveStatsService = liveStatsService;
+        this.activityStreamService = activityStreamService;
+        this.heartbeatReader = objectMapper.readerFor(HeartbeatRequest.class);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportResult importNdjson(String userEmail, InputStream body) throws IOException {
+        ImportResult result = new ImportResult();
+        Map<ActivityKey, ActivityDelta> batch = new LinkedHashMap<>();
+        long batchRecords = 0;
+        LineReader reader = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (reader.isTooLong()) {
+                reject(result, lineNumber, "line is longer than " + MAX_LINE_LENGTH + " characters");
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+
+            HeartbeatRequest record;
+            try {
+                record = heartbeatReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                reject(result, lineNumber, "invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            String error = record != null ? record.validationError() : "record is empty";
+            if (error != null) {
+                reject(result, lineNumber, error);
+                continue;
+            }
+
+            ActivityKey key = new ActivityKey(userEmail, record.getProjectPath(), record.getFilePath(), record.getDate());
+            batch.merge(key, new ActivityDelta(record.getCodingTime(), record.getOpenTime()), ActivityDelta::plus);
+            batchRecords++;
+            if (batch.size() >= batchSize) {
+                if (!commit(userEmail, batch, batchRecords, lineNumber, result)) {
+                    return result;
+                }
+                batchRecords = 0;
+            }
+        }
+
+        result.setLinesRead(lineNumber);
+        if (!batch.isEmpty() && !commit(userEmail, batch, batchRecords, lineNumber, result)) {
+            return result;
+        }
+        result.setCommittedLines(lineNumber);
+        log.info("Imported {} records from {} lines for {} ({} rejected)",
+                result.getImported(), lineNumber, userEmail, result.getFailed());
+        return result;
+    }
+
+    private boolean commit(String userEmail, Map<ActivityKey, ActivityDelta> batch, long records, long lineNumber, ImportResult result) {
+        try {
+            activityService.applyDeltas(batch);
+        } catch (RuntimeException e) {
+            log.error("Import aborted at line {}: batch of {} records failed", lineNumber, records, e);
+            result.setLinesRead(lineNumber);
+            result.setAbortedReason("Failed to write records up to line " + lineNumber);
+            return false;
+        }
+        batch.forEach((key, delta) -> liveStatsService.recordCommitted(key.userEmail(), key.projectPath(), key.date(),
+                delta.codingTime(), delta.openTime()));
+        // Пачка импорта - тысячи строк: подписчикам потока уходит resync, а не дельты
+        activityStreamService.resyncAfterCommit(userEmail);
+        batch.clear();
+        result.setImported(result.getImported() + records);
+        result.setCommittedLines(lineNumber);
+        result.setBatches(result.getBatches() + 1);
+        log.debug("Import progress: {} records committed, {} lines read", result.getImported(), lineNumber);
+        return true;
+    }
+
+    private void reject(ImportResult result, long lineNumber, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ImportError(lineNumber, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    // Построчное чтение с ограничением длины: хвост слишком длинной строки пропускается, а не копится в памяти
+    static final class LineReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        // true, если последняя прочитанная строка превысила MAX_LINE_LENGTH (тогда readLine вернул пустую строку)
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (!any) {
+                            return null;
+                        }
+                        return line.toString();
+                    }
+                }
+                any = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    return line.toString();
+                }
+                if (tooLong) {
+                    continue;
+                }
+                if (line.length() >= MAX_LINE_LENGTH) {
+                    tooLong = true;
+                    line.setLength(0);
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+    }
+}
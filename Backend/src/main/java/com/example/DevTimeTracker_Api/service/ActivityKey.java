@@ -0,0 +1,7 @@
+package com.example.DevTimeTracker_Api.service;
+
+import java.time.LocalDate;
+
+// Ключ, по которому схлопываются дельты активности: один файл проекта за один день
+public record ActivityKey(String userEmail, String projectPath, String filePath, LocalDate date) {
+}
@@ -0,0 +1,101 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.StatsUpsertRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@Service
+@Slf4j
+public class ActivityService {
+    private final ProjectStatsRepository projectStatsRepository;
+    private final StatsUpsertRepository statsUpsertRepository;
+    private final UserDailyStatsService userDailyStatsService;
+    private final BadgeService badgeService;
+
+    public ActivityService(ProjectStatsRepository projectStatsRepository,
+                           StatsUpsertRepository statsUpsertRepository,
+                           UserDailyStatsService userDailyStatsService,
+                           BadgeService badgeService) {
+        this.projectStatsRepository = projectStatsRepository;
+        this.statsUpsertRepository = statsUpsertRepository;
+        this.userDailyStatsService = userDailyStatsService;
+        this.badgeService = badgeService;
+    }
+
+    // Применяет дельты как upsert: проекты, файлы и дневные строки создаются и складываются через
+    // INSERT ... ON CONFLICT, поэтому одновременные пачки с разных устройств не плодят дубли и не теряют время.
+    // Строки каждого вида пишутся по возрастанию ключа, а таблицы - в одном порядке с ProjectStatsService.saveProject:
+    // параллельные записи блокируют строки в одной последовательности и ждут друг друга без deadlock-ов
+    @Transactional
+    public void applyDeltas(Map<ActivityKey, ActivityDelta> deltas) {
+        Map<String, ActivityKey> projectKeys = new TreeMap<>();
+        Map<String, Set<String>> projectFiles = new HashMap<>();
+        for (ActivityKey key : deltas.keySet()) {
+            String projectKey = key.userEmail() + '\n' + key.projectPath();
+            projectKeys.putIfAbsent(projectKey, key);
+            projectFiles.computeIfAbsent(projectKey, k -> new TreeSet<>()).add(key.filePath());
+        }
+        Map<String, Long> projectIds = new HashMap<>();
+        Map<Long, Map<String, Long>> fileIds = new HashMap<>();
+        projectKeys.forEach((projectKey, key) -> {
+            long projectId = statsUpsertRepository.upsertProject(key.userEmail(), key.projectPath());
+            projectIds.put(projectKey, projectId);
+            fileIds.put(projectId, statsUpsertRepository.upsertFiles(projectId, projectFiles.get(projectKey)));
+        });
+
+        Map<Long, Long> fileProjects = new HashMap<>();
+        Map<Long, Map<LocalDate, ActivityDelta>> fileDailies = new TreeMap<>();
+        Map<Long, Map<LocalDate, ActivityDelta>> projectDailies = new TreeMap<>();
+        Map<Long, ActivityDelta> fileTotals = new TreeMap<>();
+        Map<Long, ActivityDelta> projectTotals = new TreeMap<>();
+        Map<String, Map<LocalDate, ActivityDelta>> userDailies = new TreeMap<>();
+
+        for (Map.Entry<ActivityKey, ActivityDelta> entry : deltas.entrySet()) {
+            ActivityKey key = entry.getKey();
+            ActivityDelta delta = entry.getValue();
+            long projectId = projectIds.get(key.userEmail() + '\n' + key.projectPath());
+            long fileId = fileIds.get(projectId).get(key.filePath());
+
+            fileProjects.put(fileId, projectId);
+            fileDailies.computeIfAbsent(fileId, k -> new TreeMap<>()).merge(key.date(), delta, ActivityDelta::plus);
+            projectDailies.computeIfAbsent(projectId, k -> new TreeMap<>()).merge(key.date(), delta, ActivityDelta::plus);
+            fileTotals.merge(fileId, delta, ActivityDelta::plus);
+            projectTotals.merge(projectId, delta, ActivityDelta::plus);
+            userDailies.computeIfAbsent(key.userEmail(), k -> new TreeMap<>())
+                    .merge(key.date(), delta, ActivityDelta::plus);
+        }
+
+        List<StatsUpsertRepository.DailyRow> fileRows = new ArrayList<>();
+        fileDailies.forEach((fileId, days) -> days.forEach((date, delta) -> fileRows.add(
+                new StatsUpsertRepository.DailyRow(fileProjects.get(fileId), fileId, date, delta.codingTime(), delta.openTime()))));
+        List<StatsUpsertRepository.DailyRow> projectRows = new ArrayList<>();
+        projectDailies.forEach((projectId, days) -> days.forEach((date, delta) -> projectRows.add(
+                new StatsUpsertRepository.DailyRow(projectId, null, date, delta.codingTime(), delta.openTime()))));
+        List<StatsUpsertRepository.TotalsRow> fileTotalRows = new ArrayList<>();
+        fileTotals.forEach((fileId, delta) -> fileTotalRows.add(
+                new StatsUpsertRepository.TotalsRow(fileId, delta.codingTime(), delta.openTime())));
+
+        statsUpsertRepository.addFileDailies(fileRows);
+        statsUpsertRepository.addProjectDailies(projectRows);
+        statsUpsertRepository.addFileTotals(fileTotalRows);
+        projectTotals.forEach((projectId, delta) -> {
+            projectStatsRepository.addTotals(projectId, delta.codingTime(), delta.openTime());
+            badgeService.evictAfterCommit(projectId);
+        });
+
+        userDailies.forEach((userEmail, days) -> days.forEach((date, delta) ->
+                userDailyStatsService.addActivity(userEmail, date, delta.codingTime(), delta.openTime())));
+        log.debug("Applied {} activity deltas to {} projects", deltas.size(), projectIds.size());
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.ActivityUpdate;
+import com.example.DevTimeTracker_Api.dto.TodayStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Поток живой активности для дашбордов (SSE). Приём heartbeat-ов только кладёт дельты в ограниченную
+// очередь подписчика и никогда не ждёт сети: отправкой занимаются потоки sender-а.
+// Подписчик, чья очередь переполнилась, отключается - клиент переподключится и получит свежий snapshot,
+// вместо того чтобы молча терять дельты и показывать неверные суммы
+@Service
+@Slf4j
+public class ActivityStreamService {
+
+    public static class TooManyConnectionsException extends RuntimeException {
+        public TooManyConnectionsException(String message) {
+            super(message);
+        }
+    }
+
+    private final class Subscriber {
+        private final String userEmail;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<ActivityUpdate> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean resync = new AtomicBoolean();
+        private final AtomicBoolean keepalive = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(String userEmail, SseEmitter emitter) {
+            this.userEmail = userEmail;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    private static final int USER_LOCK_STRIPES = 64;
+
+    private final int queueCapacity;
+    private final int maxConnectionsPerUser;
+    private final long timeoutMs;
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor;
+    private final ReadWriteLock[] userLocks = new ReadWriteLock[USER_LOCK_STRIPES];
+
+    public ActivityStreamService(@Value("${activity-stream.queue-capacity:256}") int queueCapacity,
+                                 @Value("${activity-stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+                                 @Value("${activity-stream.timeout-ms:1800000}") long timeoutMs,
+                                 @Value("${activity-stream.sender-threads:64}") int senderThreads,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.queueCapacity = queueCapacity;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.timeoutMs = timeoutMs;
+        // Запись в медленный сокет блокирует поток: с виртуальными потоками это дёшево,
+        // с платформенными пул растёт до sender-threads без очереди задач. Подписчик занимает не больше
+        // одного потока, поэтому зависшие сокеты не держат отправку остальным, пока пул не исчерпан.
+        // Отказ пула не теряет события: они ждут в очереди подписчика до следующего publish или keepalive
+        if (virtualThreads) {
+            this.sendExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("activity-stream-", 0).factory());
+        } else {
+            ThreadFactory threadFactory = Thread.ofPlatform().name("activity-stream-", 0).daemon(true).factory();
+            this.sendExecutor = new ThreadPoolExecutor(0, senderThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+        }
+        for (int i = 0; i < USER_LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    // Эмиттер создаётся в потоке запроса; первым событием уходит snapshot текущего дня.
+    // Регистрация и snapshot - под эксклюзивной блокировкой пользователя, а учёт и публикация дельт - под общей,
+    // поэтому каждая дельта попадает либо в snapshot, либо в очередь подписчика, но не в оба.
+    // Отправка дельт держится до отправки snapshot-а: дельты, пришедшие в это время, ждут в очереди
+    public SseEmitter subscribe(String userEmail, Supplier<TodayStats> snapshot) {
+        // Лимит мягкий: параллельные подписки могут немного его превысить
+        Set<Subscriber> open = subscribers.get(userEmail);
+        if (open != null && open.size() >= maxConnectionsPerUser) {
+            throw new TooManyConnectionsException("Too many open activity streams, at most " + maxConnectionsPerUser + " are allowed");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userEmail, emitter);
+        subscriber.scheduled.set(true);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        TodayStats today;
+        Lock lock = userLock(userEmail).writeLock();
+        lock.lock();
+        try {
+            // Через compute, чтобы не добавить подписчика в набор, который remove() как раз убирает из карты
+            subscribers.compute(userEmail, (k, userSubscribers) -> {
+                Set<Subscriber> result = userSubscribers != null ? userSubscribers : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+            today = snapshot.get();
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            send(subscriber, SseEmitter.event().name("snapshot").data(today, MediaType.APPLICATION_JSON));
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        subscriber.scheduled.set(false);
+        if (!subscriber.queue.isEmpty() || subscriber.closed) {
+            schedule(subscriber);
+        }
+        log.debug("Activity stream opened for {}", userEmail);
+        return emitter;
+    }
+
+    // apply учитывает дельты (живые счётчики, буфер записи) под общей блокировкой пользователя вместе с публикацией:
+    // снятие snapshot-а для нового подписчика не может оказаться между ними
+    public void publish(String userEmail, Map<ActivityKey, ActivityDelta> deltas, Runnable apply) {
+        Lock lock = userLock(userEmail).readLock();
+        lock.lock();
+        try {
+            apply.run();
+            enqueue(userEmail, deltas);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Горячий путь: без подписчиков - один поиск в карте. Переполненного подписчика только помечаем закрытым:
+    // complete() ждёт отправки, застрявшей в медленном сокете, поэтому эмиттер завершает поток sender-а
+    private void enqueue(String userEmail, Map<ActivityKey, ActivityDelta> deltas) {
+        Set<Subscriber> userSubscribers = subscribers.get(userEmail);
+        if (userSubscribers == null || userSubscribers.isEmpty()) {
+            return;
+        }
+        List<ActivityUpdate> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> updates.add(new ActivityUpdate(key.projectPath(), key.filePath(), key.date(),
+                delta.codingTime(), delta.openTime())));
+        for (Subscriber subscriber : userSubscribers) {
+            for (ActivityUpdate update : updates) {
+                if (!subscriber.queue.offer(update)) {
+                    log.warn("Activity stream of {} is too slow ({} queued updates), closing it", userEmail, queueCapacity);
+                    remove(subscriber);
+                    break;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+    // Для записей мимо буфера (создание и удаление проектов, импорт): вместо тысяч дельт подписчики
+    // получают событие resync и перечитывают статистику сами. Подряд идущие resync-и схлопываются
+    public void resyncAfterCommit(String userEmail) {
+        if (!subscribers.containsKey(userEmail)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resync(userEmail);
+                }
+            });
+        } else {
+            resync(userEmail);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    // Комментарий раз в интервал не даёт прокси закрыть простаивающее соединение и выявляет отвалившихся клиентов.
+    // Отправляет его sender, как и остальные события: запись в зависший сокет не должна держать общий поток @Scheduled
+    @Scheduled(fixedDelayString = "${activity-stream.keepalive-ms:15000}")
+    public void keepAlive() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+            subscriber.keepalive.set(true);
+            schedule(subscriber);
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+        sendExecutor.shutdown();
+        sendExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void resync(String userEmail) {
+        Set<Subscriber> userSubscribers = subscribers.get(userEmail);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.resync.set(true);
+            schedule(subscriber);
+        }
+    }
+
+    private ReadWriteLock userLock(String userEmail) {
+        return userLocks[Math.floorMod(userEmail.hashCode(), USER_LOCK_STRIPES)];
+    }
+
+    // Закрытый подписчик тоже планируется - один раз, чтобы sender завершил его эмиттер
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    // Всё накопленное уходит одним событием activity с массивом дельт; keepalive нужен, только если больше нечего слать
+    private void drain(Subscriber subscriber) {
+        // scheduled остаётся выставленным: закрытого подписчика больше никто не запланирует
+        if (subscriber.closed) {
+            subscriber.emitter.complete();
+            return;
+        }
+        boolean keepalive = subscriber.keepalive.getAndSet(false);
+        boolean resync = subscriber.resync.getAndSet(false);
+        if (resync) {
+            send(subscriber, SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+        }
+        List<ActivityUpdate> updates = new ArrayList<>();
+        subscriber.queue.drainTo(updates);
+        if (!updates.isEmpty()) {
+            send(subscriber, SseEmitter.event().name("activity").data(updates, MediaType.APPLICATION_JSON));
+        } else if (keepalive && !resync) {
+            send(subscriber, SseEmitter.event().comment("keepalive"));
+        }
+        subscriber.scheduled.set(false);
+        // Событие, пришедшее между проверками и сбросом флага, иначе ждало бы следующего publish
+        if (!subscriber.queue.isEmpty() || subscriber.resync.get() || subscriber.keepalive.get() || subscriber.closed) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed) {
+            return;
+        }
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Activity stream of {} is gone: {}", subscriber.userEmail, e.getMessage());
+            drop(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        remove(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.queue.clear();
+        subscribers.computeIfPresent(subscriber.userEmail, (k, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.entity.GitHubBadge;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// Сбрасывает бейдж проекта при изменении его итогов, включении/выключении бейджа или удалении.
+// BadgeService через @Lazy: слушатель создаётся вместе с EntityManagerFactory, от которой зависит сам сервис
+@Component
+public class BadgeCacheEvictionListener {
+    private final BadgeService badgeService;
+
+    public BadgeCacheEvictionListener(@Lazy BadgeService badgeService) {
+        this.badgeService = badgeService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evict(Object entity) {
+        if (entity instanceof ProjectStats project) {
+            badgeService.evictAfterCommit(project.getId());
+        } else if (entity instanceof GitHubBadge badge && badge.getProject() != null) {
+            badgeService.evictAfterCommit(badge.getProject().getId());
+        }
+    }
+}
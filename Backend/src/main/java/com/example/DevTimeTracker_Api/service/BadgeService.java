@@ -0,0 +1,160 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.entity.GitHubBadge;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import com.example.DevTimeTracker_Api.repository.GitHubBadgeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Бейджи для README: готовый SVG и ETag лежат в памяти, повторные запросы не ходят в базу.
+// Запись сбрасывается при изменении итогов проекта и бейджа (BadgeCacheEvictionListener) и в любом случае живёт не дольше ttl
+@Service
+public class BadgeService {
+
+    public record RenderedBadge(byte[] svg, String etag) {
+    }
+
+    // badge == null - публичного бейджа нет; такие ответы тоже кэшируются, но на короткий срок
+    private record Entry(RenderedBadge badge, long expiresAt) {
+    }
+
+    private static final String LABEL = "coding time";
+    private static final int GENERATION_STRIPES = 256;
+
+    private final GitHubBadgeRepository badgeRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final ConcurrentHashMap<Long, Entry> cache = new ConcurrentHashMap<>();
+    // Поколение по полосам id: evict его увеличивает, и бейдж, прочитанный до сброса, не ложится в кэш после него.
+    // Полосы вместо счётчика на каждый id держат память ограниченной, совпадение полос лишь пропускает запись в кэш
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public BadgeService(GitHubBadgeRepository badgeRepository,
+                        @Value("${badge.cache.max-entries:10000}") int maxEntries,
+                        @Value("${badge.cache.ttl-ms:600000}") long ttlMillis,
+                        @Value("${badge.cache.negative-ttl-ms:30000}") long negativeTtlMillis) {
+        this.badgeRepository = badgeRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    // Пусто, если у проекта нет публичного бейджа. Без @Transactional: попадание в кэш не берёт соединение из пула.
+    // Промахи тоже кэшируются: иначе перебор несуществующих id на открытом эндпоинте ходил бы в базу каждый раз
+    public Optional<RenderedBadge> getBadge(Long projectId) {
+        Entry entry = cache.get(projectId);
+        if (entry == null || entry.expiresAt() <= System.currentTimeMillis()) {
+            if (entry == null && cache.size() >= maxEntries) {
+                evictOverflow();
+            }
+            // Запрос в базу вне compute, чтобы не держать блокировку корзины карты: на ней ждали бы evict-ы
+            int stripe = stripe(projectId);
+            long generation = generations.get(stripe);
+            Entry loaded = load(projectId);
+            cache.compute(projectId, (id, current) -> generations.get(stripe) == generation ? loaded : current);
+            entry = loaded;
+        }
+        return Optional.ofNullable(entry.badge());
+    }
+
+    @Transactional
+    public GitHubBadge setPublic(ProjectStats project, boolean isPublic) {
+        GitHubBadge badge = badgeRepository.findByProjectId(project.getId()).orElseGet(() -> {
+            GitHubBadge created = new GitHubBadge();
+            created.setProject(project);
+            return created;
+        });
+        badge.setPublic(isPublic);
+        badge.setTotalCodingTime(project.getTotalCodingTime());
+        return badgeRepository.save(badge);
+    }
+
+    // Сначала поколение, потом удаление: загрузка либо увидит новое поколение, либо её запись будет удалена
+    public void evict(Long projectId) {
+        generations.incrementAndGet(stripe(projectId));
+        cache.remove(projectId);
+    }
+
+    // Из транзакции записи: сброс до коммита дал бы параллельному запросу перечитать и закэшировать старые итоги
+    public void evictAfterCommit(Long projectId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(projectId);
+                }
+            });
+        } else {
+            evict(projectId);
+        }
+    }
+
+    private Entry load(Long projectId) {
+        long now = System.currentTimeMillis();
+        Optional<GitHubBadge> badge = badgeRepository.findByProjectId(projectId);
+        if (badge.isEmpty() || !badge.get().isPublic()) {
+            return new Entry(null, now + negativeTtlMillis);
+        }
+        return new Entry(render(badge.get().getProject().getTotalCodingTime()), now + ttlMillis);
+    }
+
+    private static int stripe(Long projectId) {
+        return Math.floorMod(projectId.hashCode(), GENERATION_STRIPES);
+    }
+
+    static RenderedBadge render(long codingTimeSeconds) {
+        String value = formatDuration(codingTimeSeconds);
+        int labelWidth = textWidth(LABEL);
+        int valueWidth = textWidth(value);
+        int width = labelWidth + valueWidth;
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"20\" role=\"img\" " +
+                "aria-label=\"" + LABEL + ": " + value + "\">" +
+                "<title>" + LABEL + ": " + value + "</title>" +
+                "<linearGradient id=\"s\" x2=\"0\" y2=\"100%\"><stop offset=\"0\" stop-color=\"#bbb\" stop-opacity=\".1\"/>" +
+                "<stop offset=\"1\" stop-opacity=\".1\"/></linearGradient>" +
+                "<clipPath id=\"r\"><rect width=\"" + width + "\" height=\"20\" rx=\"3\" fill=\"#fff\"/></clipPath>" +
+                "<g clip-path=\"url(#r)\">" +
+                "<rect width=\"" + labelWidth + "\" height=\"20\" fill=\"#555\"/>" +
+                "<rect x=\"" + labelWidth + "\" width=\"" + valueWidth + "\" height=\"20\" fill=\"#007ec6\"/>" +
+                "<rect width=\"" + width + "\" height=\"20\" fill=\"url(#s)\"/></g>" +
+                "<g fill=\"#fff\" text-anchor=\"middle\" font-family=\"Verdana,Geneva,DejaVu Sans,sans-serif\" font-size=\"11\">" +
+                "<text x=\"" + labelWidth / 2 + "\" y=\"14\">" + LABEL + "</text>" +
+                "<text x=\"" + (labelWidth + valueWidth / 2) + "\" y=\"14\">" + value + "</text></g></svg>";
+        byte[] bytes = svg.getBytes(StandardCharsets.UTF_8);
+        return new RenderedBadge(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+    }
+
+    static String formatDuration(long seconds) {
+        long hours = seconds / 3600;
+        long minutes = seconds % 3600 / 60;
+        if (hours == 0) {
+            return minutes + "m";
+        }
+        return hours + "h " + minutes + "m";
+    }
+
+    // Грубая оценка ширины Verdana 11px, как у shields.io-бейджей
+    private static int textWidth(String text) {
+        return text.length() * 7 + 10;
+    }
+
+    // Порядок обхода ConcurrentHashMap произвольный, так что вытесняются случайные записи
+    private void evictOverflow() {
+        Iterator<Long> iterator = cache.keySet().iterator();
+        while (cache.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Сворачивает дневную статистику файлов в дневную статистику проекта.
+// Дата переводится один раз в epoch-day, суммы копятся в массивах long по смещению дня,
+// сущности создаются только для итоговых дней
+@Component
+public class DailyStatsAggregator {
+
+    // Плотные массивы покрывают ~180 лет; более широкий разброс дат агрегируется сортировкой
+    static final int MAX_DENSE_SPAN = 1 << 16;
+
+    private static final int INVALID_DAY = Integer.MIN_VALUE;
+
+    public List<DailyStats> aggregate(List<FileStats> files) {
+        int rows = 0;
+        for (FileStats file : files) {
+            if (file.getDailyStats() != null) {
+                rows += file.getDailyStats().size();
+            }
+        }
+
+        // Первый проход: только epoch-day и границы диапазона
+        int[] days = new int[rows];
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        int valid = 0;
+        int i = 0;
+        ProjectStats project = null;
+        for (FileStats file : files) {
+            if (file.getDailyStats() == null) {
+                continue;
+            }
+            for (DailyStats daily : file.getDailyStats()) {
+                if (project == null) {
+                    project = daily.getProject();
+                }
+                int day = daily.getDate() != null ? Math.toIntExact(daily.getDate().toEpochDay()) : INVALID_DAY;
+                days[i++] = day;
+                if (day != INVALID_DAY) {
+                    minDay = Math.min(minDay, day);
+                    maxDay = Math.max(maxDay, day);
+                    valid++;
+                }
+            }
+        }
+
+        List<DailyStats> result = new ArrayList<>();
+        if (valid > 0) {
+            long span = (long) maxDay - minDay + 1;
+            if (span <= MAX_DENSE_SPAN) {
+                aggregateDense(files, days, minDay, (int) span, project, result);
+            } else {
+                aggregateSorted(files, days, valid, project, result);
+            }
+        }
+        if (valid < rows) {
+            result.add(aggregateUndated(files, days, project));
+        }
+        return result;
+    }
+
+    private void aggregateDense(List<FileStats> files, int[] days, int minDay, int span,
+                                ProjectStats project, List<DailyStats> result) {
+        long[] coding = new long[span];
+        long[] open = new long[span];
+        boolean[] present = new boolean[span];
+        int i = 0;
+        for (FileStats file : files) {
+            if (file.getDailyStats() == null) {
+                continue;
+            }
+            for (DailyStats daily : file.getDailyStats()) {
+                int day = days[i++];
+                if (day == INVALID_DAY) {
+                    continue;
+                }
+                int offset = day - minDay;
+                coding[offset] += daily.getCodingTime();
+                open[offset] += daily.getOpenTime();
+                present[offset] = true;
+            }
+        }
+        for (int offset = 0; offset < span; offset++) {
+            if (present[offset]) {
+                result.add(newDaily(project, minDay + offset, coding[offset], open[offset]));
+            }
+        }
+    }
+
+    // Ключ сортировки: день в старших 32 битах, номер строки в младших
+    private void aggregateSorted(List<FileStats> files, int[] days, int valid,
+                                 ProjectStats project, List<DailyStats> result) {
+        long[] keys = new long[valid];
+        long[] coding = new long[days.length];
+        long[] open = new long[days.length];
+        int i = 0;
+        int k = 0;
+        for (FileStats file : files) {
+            if (file.getDailyStats() == null) {
+                continue;
+            }
+            for (DailyStats daily : file.getDailyStats()) {
+                if (days[i] != INVALID_DAY) {
+                    keys[k++] = ((long) days[i] << 32) | i;
+                    coding[i] = daily.getCodingTime();
+                    open[i] = daily.getOpenTime();
+                }
+                i++;
+            }
+        }
+        Arrays.sort(keys);
+
+        int k0 = 0;
+        while (k0 < valid) {
+            int day = (int) (keys[k0] >> 32);
+            long codingSum = 0;
+            long openSum = 0;
+            while (k0 < valid && (int) (keys[k0] >> 32) == day) {
+                int row = (int) keys[k0];
+                codingSum += coding[row];
+                openSum += open[row];
+                k0++;
+            }
+            result.add(newDaily(project, day, codingSum, openSum));
+        }
+    }
+
+    // Строки без даты сворачиваются в одну, как раньше при группировке по строке
+    private DailyStats aggregateUndated(List<FileStats> files, int[] days, ProjectStats project) {
+        DailyStats undated = new DailyStats();
+        undated.setProject(project);
+        int i = 0;
+        for (FileStats file : files) {
+            if (file.getDailyStats() == null) {
+                continue;
+            }
+            for (DailyStats daily : file.getDailyStats()) {
+                if (days[i++] == INVALID_DAY) {
+                    undated.setCodingTime(undated.getCodingTime() + daily.getCodingTime());
+                    undated.setOpenTime(undated.getOpenTime() + daily.getOpenTime());
+                }
+            }
+        }
+        return undated;
+    }
+
+    private DailyStats newDaily(ProjectStats project, int epochDay, long codingTime, long openTime) {
+        DailyStats daily = new DailyStats();
+        daily.setProject(project);
+        daily.setDate(LocalDate.ofEpochDay(epochDay));
+        daily.setCodingTime(codingTime);
+        daily.setOpenTime(openTime);
+        return daily;
+    }
+}
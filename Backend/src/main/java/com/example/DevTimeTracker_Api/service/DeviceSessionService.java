@@ -0,0 +1,167 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.DeviceSession;
+import com.example.DevTimeTracker_Api.dto.TokenResponse;
+import com.example.DevTimeTracker_Api.entity.Device;
+import com.example.DevTimeTracker_Api.entity.User;
+import com.example.DevTimeTracker_Api.repository.DeviceRepository;
+import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.example.DevTimeTracker_Api.security.JwtAuthenticationCache;
+import com.example.DevTimeTracker_Api.utils.JwtClaims;
+import com.example.DevTimeTracker_Api.utils.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// Долгоживущие сессии устройств: пароль проверяется один раз при входе,
+// дальше клиент обменивает refresh-токен на новую пару без BCrypt и без загрузки пользователя через UserDetailsService
+@Service
+@Slf4j
+public class DeviceSessionService {
+    private static final String UNKNOWN = "unknown";
+
+    private final DeviceRepository deviceRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final JwtAuthenticationCache authenticationCache;
+    private final long refreshExpirationMillis;
+
+    public DeviceSessionService(DeviceRepository deviceRepository,
+                                UserRepository userRepository,
+                                JwtUtil jwtUtil,
+                                JwtAuthenticationCache authenticationCache,
+                                @Value("${jwt.refresh.expiration-ms:7776000000}") long refreshExpirationMillis) {
+        this.deviceRepository = deviceRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.authenticationCache = authenticationCache;
+        this.refreshExpirationMillis = refreshExpirationMillis;
+    }
+
+    // Повторный вход с того же устройства переиспользует его запись, старый refresh-токен при этом перестаёт действовать
+    @Transactional
+    public TokenResponse openSession(String email, String deviceName, String ide) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        String name = deviceName == null || deviceName.isBlank() ? UNKNOWN : deviceName;
+        String ideName = ide == null || ide.isBlank() ? UNKNOWN : ide;
+        Instant now = Instant.now();
+
+        Device device = deviceRepository.findFirstByUserEmailAndDeviceNameAndIde(email, name, ideName)
+                .orElseGet(() -> {
+                    Device created = new Device();
+                    created.setUser(user);
+                    created.setDeviceName(name);
+                    created.setIde(ideName);
+                    created.setCreatedAt(now);
+                    return created;
+                });
+        device.setRefreshTokenId(UUID.randomUUID().toString());
+        device.setLastUsedAt(now);
+        device.setExpiresAt(now.plusMillis(refreshExpirationMillis));
+        device.setRevokedAt(null);
+        deviceRepository.save(device);
+
+        return issueTokens(user, device.getId(), device.getRefreshTokenId(), device.getExpiresAt());
+    }
+
+    // Предъявление уже заменённого refresh-токена означает, что его скопировали: сессия устройства отзывается
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public TokenResponse refresh(String refreshToken) {
+        JwtClaims claims = parseRefreshToken(refreshToken);
+        Device device = deviceRepository.findWithUserById(claims.deviceId())
+                .orElseThrow(() -> new BadCredentialsException("Unknown device session"));
+        Instant now = Instant.now();
+        if (!device.isActive(now) || !device.getUser().getEmail().equals(claims.subject())) {
+            throw new BadCredentialsException("Device session is revoked or expired");
+        }
+
+        String newTokenId = UUID.randomUUID().toString();
+        Instant expiresAt = now.plusMillis(refreshExpirationMillis);
+        if (deviceRepository.rotate(device.getId(), claims.tokenId(), newTokenId, now, expiresAt) == 0) {
+            deviceRepository.revoke(device.getId(), now);
+            evictAfterCommit(device.getId());
+            log.warn("Refresh token reuse detected for device {} of {}, session revoked", device.getId(), claims.subject());
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        return issueTokens(device.getUser(), device.getId(), newTokenId, expiresAt);
+    }
+
+    @Transactional
+    public void logout(String refreshToken) {
+        JwtClaims claims = parseRefreshToken(refreshToken);
+        deviceRepository.revoke(claims.deviceId(), Instant.now());
+        evictAfterCommit(claims.deviceId());
+    }
+
+    // Для JwtFilter: access-токены сессии действуют, пока она не отозвана и не истекла
+    public boolean isActive(Long deviceId) {
+        return deviceRepository.isActive(deviceId, Instant.now());
+    }
+
+    @Transactional(readOnly = true)
+    public List<DeviceSession> listSessions(String email) {
+        Instant now = Instant.now();
+        return deviceRepository.findByUserEmailOrderByLastUsedAtDesc(email).stream()
+                .map(device -> new DeviceSession(device.getId(), device.getDeviceName(), device.getIde(),
+                        device.getCreatedAt(), device.getLastUsedAt(), device.getExpiresAt(), device.isActive(now)))
+                .toList();
+    }
+
+    // false, если у пользователя нет такого устройства
+    @Transactional
+    public boolean revoke(String email, Long deviceId) {
+        return deviceRepository.findWithUserById(deviceId)
+                .filter(device -> device.getUser().getEmail().equals(email))
+                .map(device -> {
+                    deviceRepository.revoke(device.getId(), Instant.now());
+                    evictAfterCommit(device.getId());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // Закэшированные access-токены сбрасываются после коммита: до него JwtFilter ещё видит сессию активной
+    private void evictAfterCommit(Long deviceId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    authenticationCache.evictDevice(deviceId);
+                }
+            });
+        } else {
+            authenticationCache.evictDevice(deviceId);
+        }
+    }
+
+    private JwtClaims parseRefreshToken(String refreshToken) {
+        JwtClaims claims;
+        try {
+            claims = jwtUtil.parseToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        if (!claims.isRefreshToken() || claims.deviceId() == null || claims.tokenId() == null || claims.subject() == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return claims;
+    }
+
+    private TokenResponse issueTokens(User user, Long deviceId, String refreshTokenId, Instant refreshExpiresAt) {
+        String accessToken = jwtUtil.generateToken(user, deviceId);
+        String refreshToken = jwtUtil.generateRefreshToken(user.getEmail(), deviceId, refreshTokenId, Date.from(refreshExpiresAt));
+        return new TokenResponse(accessToken, jwtUtil.getExpirationMillis() / 1000, refreshToken, refreshExpiresAt, deviceId);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.repository.DailyStatsRepository;
+import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
+import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.StatsUpsertRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class FileStatsService {
+    private final FileStatsRepository fileStatsRepository;
+    private final ProjectStatsRepository projectStatsRepository;
+    private final StatsUpsertRepository statsUpsertRepository;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final UserDailyStatsService userDailyStatsService;
+    private final IngestionMetrics ingestionMetrics;
+    private final BadgeService badgeService;
+    private final LiveStatsService liveStatsService;
+    private final ActivityStreamService activityStreamService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public FileStatsService(FileStatsRepository fileStatsRepository,
+                            ProjectStatsRepository projectStatsRepository,
+                            StatsUpsertRepository statsUpsertRepository,
+                            DailyStatsRepository dailyStatsRepository,
+                            UserDailyStatsService userDailyStatsService,
+                            IngestionMetrics ingestionMetrics,
+                            BadgeService badgeService,
+                            LiveStatsService liveStatsService,
+                            ActivityStreamService activityStreamService) {
+        this.fileStatsRepository = fileStatsRepository;
+        this.projectStatsRepository = projectStatsRepository;
+        this.statsUpsertRepository = statsUpsertRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.userDailyStatsService = userDailyStatsService;
+        this.ingestionMetrics = ingestionMetrics;
+        this.badgeService = badgeService;
+        this.liveStatsService = liveStatsService;
+        this.activityStreamService = activityStreamService;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<FileStats> findDetailed(Long id) {
+        return fileStatsRepository.findDetailedById(id);
+    }
+
+    // Файл с дневной статистикой только за [from, to] через range scan по (file_id, date)
+    @Transactional(readOnly = true)
+    public Optional<FileStats> findDetailed(Long id, LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : DailyStatsRepository.EARLIEST_DATE;
+        LocalDate end = to != null ? to : DailyStatsRepository.LATEST_DATE;
+        Optional<FileStats> file = fileStatsRepository.findWithProjectById(id);
+        file.ifPresent(f -> {
+            entityManager.detach(f);
+            f.setDailyStats(dailyStatsRepository.findByFileIdAndDateBetweenOrderByDateAsc(id, start, end));
+        });
+        return file;
+    }
+
+    // Итоги файла считаются по его дневным строкам и атомарно добавляются к итогам проекта.
+    // Файл проекта пишется upsert-ом по (project_id, file_path): повторная отправка того же пути складывает время
+    @Transactional
+    public FileStats saveFile(FileStats file) {
+        file.setDailyStats(ProjectStatsService.mergeDailyStatsByDate(file.getDailyStats()));
+        ProjectStatsService.setTotalsFromDailyStats(file);
+        boolean inProject = file.getProject() != null && file.getProject().getId() != null;
+        Long fileId = inProject ? upsertFile(file) : fileStatsRepository.save(file).getId();
+        addProjectTotals(file, 1);
+        // Файлы без проекта не входят в сводку пользователя
+        if (file.getProject() != null && file.getDailyStats() != null) {
+            userDailyStatsService.addDailyStats(file.getProject().getUserEmail(), file.getDailyStats());
+            recordLive(file, 1);
+        }
+        ingestionMetrics.recordFileRows(file);
+        // Строки файла записаны мимо JPA, поэтому ответ собирается заново из базы
+        entityManager.flush();
+        entityManager.clear();
+        return findDetailed(fileId).orElseThrow();
+    }
+
+    // Порядок таблиц как в ActivityService.applyDeltas: дневные строки файла, итоги файла, затем итоги проекта
+    private long upsertFile(FileStats file) {
+        long projectId = file.getProject().getId();
+        long fileId = statsUpsertRepository.upsertFiles(projectId, List.of(file.getFilePath())).get(file.getFilePath());
+        List<StatsUpsertRepository.DailyRow> rows = new ArrayList<>();
+        if (file.getDailyStats() != null) {
+            for (DailyStats daily : file.getDailyStats()) {
+                rows.add(new StatsUpsertRepository.DailyRow(projectId, fileId, daily.getDate(), daily.getCodingTime(), daily.getOpenTime()));
+            }
+            rows.sort(Comparator.comparing(StatsUpsertRepository.DailyRow::date, Comparator.nullsFirst(Comparator.naturalOrder())));
+        }
+        statsUpsertRepository.addFileDailies(rows);
+        statsUpsertRepository.addFileTotals(List.of(new StatsUpsertRepository.TotalsRow(fileId, file.getCodingTime(), file.getOpenTime())));
+        if (file.getType() != null) {
+            statsUpsertRepository.setFileType(fileId, file.getType());
+        }
+        return fileId;
+    }
+
+    @Transactional
+    public void deleteFile(FileStats file) {
+        if (file.getProject() != null && file.getDailyStats() != null) {
+            userDailyStatsService.subtractDailyStats(file.getProject().getUserEmail(), file.getDailyStats());
+            recordLive(file, -1);
+        }
+        addProjectTotals(file, -1);
+        fileStatsRepository.delete(file);
+    }
+
+    private void recordLive(FileStats file, int sign) {
+        activityStreamService.resyncAfterCommit(file.getProject().getUserEmail());
+        for (DailyStats daily : file.getDailyStats()) {
+            liveStatsService.recordCommitted(file.getProject().getUserEmail(), file.getProject().getProjectPath(),
+                    daily.getDate(), sign * daily.getCodingTime(), sign * daily.getOpenTime());
+        }
+    }
+
+    private void addProjectTotals(FileStats file, int sign) {
+        if (file.getProject() == null || file.getProject().getId() == null) {
+            return;
+        }
+        Long projectId = file.getProject().getId();
+        projectStatsRepository.addTotals(projectId, sign * file.getCodingTime(), sign * file.getOpenTime());
+        badgeService.evictAfterCommit(projectId);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Метрики горячего пути записи: сколько строк уходит в базу на один запрос и сколько стоит агрегация
+@Component
+public class IngestionMetrics {
+    private final DistributionSummary projectRows;
+    private final DistributionSummary fileRows;
+    private final Timer aggregation;
+
+    public IngestionMetrics(MeterRegistry meterRegistry) {
+        this.projectRows = rowsSummary(meterRegistry, "createProject");
+        this.fileRows = rowsSummary(meterRegistry, "createFile");
+        this.aggregation = Timer.builder("ingestion.aggregation")
+                .description("Time spent aggregating file daily stats into project daily stats")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public <T> T timeAggregation(Supplier<T> aggregate) {
+        return aggregation.record(aggregate);
+    }
+
+    // Проект, его файлы, дневная статистика файлов и проекта
+    public void recordProjectRows(ProjectStats project) {
+        long rows = 1 + size(project.getDailyStats());
+        if (project.getFiles() != null) {
+            for (FileStats file : project.getFiles()) {
+                rows += 1 + size(file.getDailyStats());
+            }
+        }
+        projectRows.record(rows);
+    }
+
+    public void recordFileRows(FileStats file) {
+        fileRows.record(1 + size(file.getDailyStats()));
+    }
+
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private static DistributionSummary rowsSummary(MeterRegistry meterRegistry, String operation) {
+        return DistributionSummary.builder("ingestion.rows.written")
+                .description("Rows written by a single create request")
+                .baseUnit("rows")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
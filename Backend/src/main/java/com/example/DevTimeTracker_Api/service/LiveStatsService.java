@@ -0,0 +1,173 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.ProjectActivity;
+import com.example.DevTimeTracker_Api.dto.TodayStats;
+import com.example.DevTimeTracker_Api.entity.UserDailyStats;
+import com.example.DevTimeTracker_Api.repository.DailyStatsRepository;
+import com.example.DevTimeTracker_Api.repository.UserDailyStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Живые счётчики "сегодня" по пользователю и проекту. Heartbeat-ы прибавляются к LongAdder в момент приёма,
+// поэтому /api/stats/today отвечает из памяти и видит время раньше, чем ActivityBuffer сбросит его в DailyStats.
+// Базой остаются DailyStats: при первом обращении за день счётчики пользователя засеваются из уже записанных строк.
+// Держатся только вчера, сегодня и завтра - даты клиентов в других часовых поясах
+@Service
+@Slf4j
+public class LiveStatsService {
+
+    private record DayKey(String userEmail, LocalDate date) {
+    }
+
+    private static final class Counter {
+        private final LongAdder codingTime = new LongAdder();
+        private final LongAdder openTime = new LongAdder();
+
+        void add(long coding, long open) {
+            codingTime.add(coding);
+            openTime.add(open);
+        }
+    }
+
+    private static final class DayCounters {
+        private final Counter total = new Counter();
+        private final ConcurrentHashMap<String, Counter> projects = new ConcurrentHashMap<>();
+        private volatile boolean seeded;
+
+        void add(String projectPath, long codingTime, long openTime) {
+            total.add(codingTime, openTime);
+            if (projectPath != null) {
+                projects.computeIfAbsent(projectPath, k -> new Counter()).add(codingTime, openTime);
+            }
+        }
+    }
+
+    private final UserDailyStatsRepository userDailyStatsRepository;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final ConcurrentHashMap<DayKey, DayCounters> days = new ConcurrentHashMap<>();
+
+    public LiveStatsService(UserDailyStatsRepository userDailyStatsRepository, DailyStatsRepository dailyStatsRepository) {
+        this.userDailyStatsRepository = userDailyStatsRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+    }
+
+    // Затравка всех дней запроса до того, как хоть одна его дельта попадёт в счётчики или буфер записи:
+    // если база недоступна, запрос падает без побочных эффектов, и повтор клиента ничего не посчитает дважды.
+    // Затравка нужна до буфера, иначе сброс мог бы записать дельту в базу раньше, чем её прочитает затравка
+    public void prepare(String userEmail, Collection<LocalDate> dates) {
+        for (LocalDate date : dates) {
+            if (isLive(date)) {
+                counters(userEmail, date);
+            }
+        }
+    }
+
+    // Горячий путь приёма heartbeat-ов: после prepare счётчики уже засеяны, и базы он не касается
+    public void record(String userEmail, String projectPath, LocalDate date, long codingTime, long openTime) {
+        if (!isLive(date)) {
+            return;
+        }
+        counters(userEmail, date).add(projectPath, codingTime, openTime);
+    }
+
+    // Для записей мимо буфера (создание и удаление проектов, импорт): после коммита и только в уже
+    // засеянные счётчики - незасеянные прочитают эти строки из базы сами
+    public void recordCommitted(String userEmail, String projectPath, LocalDate date, long codingTime, long openTime) {
+        if (!isLive(date)) {
+            return;
+        }
+        DayKey key = new DayKey(userEmail, date);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addIfTracked(key, projectPath, codingTime, openTime);
+                }
+            });
+        } else {
+            addIfTracked(key, projectPath, codingTime, openTime);
+        }
+    }
+
+    public TodayStats today(String userEmail) {
+        LocalDate date = LocalDate.now();
+        DayCounters counters = counters(userEmail, date);
+        List<ProjectActivity> projects = new ArrayList<>();
+        counters.projects.forEach((projectPath, counter) -> {
+            long codingTime = counter.codingTime.sum();
+            long openTime = counter.openTime.sum();
+            if (codingTime != 0 || openTime != 0) {
+                projects.add(new ProjectActivity(projectPath, codingTime, openTime));
+            }
+        });
+        projects.sort(Comparator.comparingLong(ProjectActivity::getCodingTime).reversed());
+        return new TodayStats(date, counters.total.codingTime.sum(), counters.total.openTime.sum(), projects);
+    }
+
+    @Scheduled(fixedDelayString = "${stats.live.cleanup-interval-ms:600000}")
+    public void evictPastDays() {
+        days.keySet().removeIf(key -> !isLive(key.date()));
+    }
+
+    private boolean isLive(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return date != null && !date.isBefore(today.minusDays(1)) && !date.isAfter(today.plusDays(1));
+    }
+
+    private void addIfTracked(DayKey key, String projectPath, long codingTime, long openTime) {
+        DayCounters counters = days.get(key);
+        if (counters == null) {
+            return;
+        }
+        // Под монитором затравки: иначе затравка могла прочитать базу до коммита этой записи, но ещё
+        // не выставить seeded, и дельта не попала бы ни в затравку, ни в счётчики
+        synchronized (counters) {
+            if (counters.seeded) {
+                counters.add(projectPath, codingTime, openTime);
+            }
+        }
+    }
+
+    // Запрос в базу вне computeIfAbsent, чтобы не держать блокировку корзины карты:
+    // на затравке ждут только обращения к этому же пользователю и дню
+    private DayCounters counters(String userEmail, LocalDate date) {
+        DayCounters counters = days.computeIfAbsent(new DayKey(userEmail, date), k -> new DayCounters());
+        if (!counters.seeded) {
+            synchronized (counters) {
+                if (!counters.seeded) {
+                    seed(counters, userEmail, date);
+                    counters.seeded = true;
+                }
+            }
+        }
+        return counters;
+    }
+
+    // Оба запроса - до изменения счётчиков: сбой второго не оставит затравку наполовину применённой
+    private void seed(DayCounters counters, String userEmail, LocalDate date) {
+        List<UserDailyStats> totals = userDailyStatsRepository.findByUserEmailAndDateBetweenOrderByDateAsc(userEmail, date, date);
+        List<ProjectActivity> projects = dailyStatsRepository.findProjectActivity(userEmail, date);
+        for (UserDailyStats day : totals) {
+            counters.total.add(day.getCodingTime(), day.getOpenTime());
+        }
+        for (ProjectActivity project : projects) {
+            if (project.getProjectPath() == null) {
+                continue;
+            }
+            counters.projects.computeIfAbsent(project.getProjectPath(), k -> new Counter())
+                    .add(project.getCodingTime(), project.getOpenTime());
+        }
+        log.debug("Seeded live stats of {} for {}", userEmail, date);
+    }
+}
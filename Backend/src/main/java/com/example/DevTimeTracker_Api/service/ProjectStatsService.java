@@ -1,23 +1,273 @@
 package com.example.DevTimeTracker_Api.service;
 
+import com.example.DevTimeTracker_Api.dto.DailyTotals;
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
 import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import com.example.DevTimeTracker_Api.repository.DailyStatsRepository;
+import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
 import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.StatsUpsertRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class ProjectStatsService {
+    // Строки без даты не конфликтуют по уникальному ключу, но сортировке не должны мешать
+    private static final Comparator<LocalDate> DATE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
     private final ProjectStatsRepository projectStatsRepository;
+    private final StatsUpsertRepository statsUpsertRepository;
+    private final FileStatsRepository fileStatsRepository;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final UserDailyStatsService userDailyStatsService;
+    private final IngestionMetrics ingestionMetrics;
+    private final BadgeService badgeService;
+    private final LiveStatsService liveStatsService;
+    private final ActivityStreamService activityStreamService;
 
-    public ProjectStatsService(ProjectStatsRepository projectStatsRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProjectStatsService(ProjectStatsRepository projectStatsRepository,
+                               StatsUpsertRepository statsUpsertRepository,
+                               FileStatsRepository fileStatsRepository,
+                               DailyStatsRepository dailyStatsRepository,
+                               UserDailyStatsService userDailyStatsService,
+                               IngestionMetrics ingestionMetrics,
+                               BadgeService badgeService,
+                               LiveStatsService liveStatsService,
+                               ActivityStreamService activityStreamService) {
         this.projectStatsRepository = projectStatsRepository;
+        this.statsUpsertRepository = statsUpsertRepository;
+        this.fileStatsRepository = fileStatsRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.userDailyStatsService = userDailyStatsService;
+        this.ingestionMetrics = ingestionMetrics;
+        this.badgeService = badgeService;
+        this.liveStatsService = liveStatsService;
+        this.activityStreamService = activityStreamService;
     }
 
     public List<ProjectStats> getAllProjects() {
         return projectStatsRepository.findAll();
     }
 
+    // Проект целиком (файлы, их дневная статистика, дневная статистика проекта) за фиксированное число запросов
+    @Transactional(readOnly = true)
+    public Optional<ProjectStats> findDetailed(Long id) {
+        List<ProjectStats> projects = projectStatsRepository.findWithFilesByIdIn(List.of(id));
+        if (projects.isEmpty()) {
+            return Optional.empty();
+        }
+        loadDailyStats(projects);
+        return Optional.of(projects.get(0));
+    }
+
+    // Проект с дневной статистикой только за [from, to] (любая граница может быть null): два range scan по (project_id, date).
+    // Сущности отсоединяются, чтобы подмена коллекций не ушла в базу
+    @Transactional(readOnly = true)
+    public Optional<ProjectStats> findDetailed(Long id, LocalDate from, LocalDate to) {
+        List<ProjectStats> projects = projectStatsRepository.findWithFilesByIdIn(List.of(id));
+        if (projects.isEmpty()) {
+            return Optional.empty();
+        }
+        ProjectStats project = projects.get(0);
+        from = from != null ? from : DailyStatsRepository.EARLIEST_DATE;
+        to = to != null ? to : DailyStatsRepository.LATEST_DATE;
+        List<DailyStats> projectDailies = dailyStatsRepository
+                .findByProjectIdAndFileIsNullAndDateBetweenOrderByDateAsc(id, from, to);
+        Map<Long, List<DailyStats>> fileDailies = new HashMap<>();
+        for (DailyStats daily : dailyStatsRepository
+                .findByProjectIdAndFileIsNotNullAndDateBetweenOrderByDateAsc(id, from, to)) {
+            fileDailies.computeIfAbsent(daily.getFile().getId(), k -> new ArrayList<>()).add(daily);
+        }
+
+        entityManager.detach(project);
+        project.setDailyStats(projectDailies);
+        for (FileStats file : project.getFiles()) {
+            file.setDailyStats(fileDailies.getOrDefault(file.getId(), new ArrayList<>()));
+        }
+        return Optional.of(project);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProjectStats> findDetailedPage(String userEmail, long afterId, Pageable page) {
+        List<ProjectStats> projects = projectStatsRepository.findByUserEmailAndIdGreaterThanOrderByIdAsc(userEmail, afterId, page);
+        if (!projects.isEmpty()) {
+            List<Long> ids = projects.stream().map(ProjectStats::getId).toList();
+            projectStatsRepository.findWithFilesByIdIn(ids);
+            loadDailyStats(projects);
+        }
+        return projects;
+    }
+
+    // Дозагружает коллекции в уже управляемые сущности: по запросу на каждый bag вместо запроса на каждый файл
+    private void loadDailyStats(List<ProjectStats> projects) {
+        List<Long> ids = projects.stream().map(ProjectStats::getId).toList();
+        fileStatsRepository.findWithDailyStatsByProjectIdIn(ids);
+        projectStatsRepository.findWithDailyStatsByIdIn(ids);
+    }
+
+    // Итоги файлов и проекта выводятся из дневных строк, присланные клиентом значения не используются.
+    // Проект создаётся INSERT ... ON CONFLICT DO NOTHING: новый пишется батчами через JPA, а если проект с этим
+    // путём уже есть (второе устройство, повторная отправка, параллельный запрос) - время добавляется к его строкам
+    @Transactional
     public ProjectStats saveProject(ProjectStats project) {
-        return projectStatsRepository.save(project);
+        List<DailyStats> fileDailyStats = new ArrayList<>();
+        long totalCodingTime = 0;
+        long totalOpenTime = 0;
+        if (project.getFiles() != null) {
+            for (FileStats file : project.getFiles()) {
+                file.setDailyStats(mergeDailyStatsByDate(file.getDailyStats()));
+                setTotalsFromDailyStats(file);
+                totalCodingTime += file.getCodingTime();
+                totalOpenTime += file.getOpenTime();
+                if (file.getDailyStats() != null) {
+                    fileDailyStats.addAll(file.getDailyStats());
+                }
+            }
+        }
+
+        Long projectId = statsUpsertRepository.insertProjectIfAbsent(project.getUserEmail(), project.getProjectPath());
+        List<StatsUpsertRepository.TotalsRow> fileTotals = List.of();
+        if (projectId != null) {
+            insertFiles(projectId, project);
+        } else {
+            projectId = statsUpsertRepository.findProjectId(project.getUserEmail(), project.getProjectPath());
+            fileTotals = mergeFileDailies(projectId, project);
+        }
+        // Порядок таблиц тот же, что в ActivityService.applyDeltas: дневные строки файлов, проекта,
+        // итоги файлов, итоги проекта. Иначе запрос и сброс heartbeat-ов по одному проекту ждали бы друг друга по кругу
+        addProjectDailies(projectId, project);
+        statsUpsertRepository.addFileTotals(fileTotals);
+        projectStatsRepository.addTotals(projectId, totalCodingTime, totalOpenTime);
+        badgeService.evictAfterCommit(projectId);
+
+        userDailyStatsService.addDailyStats(project.getUserEmail(), fileDailyStats);
+        for (DailyStats daily : fileDailyStats) {
+            liveStatsService.recordCommitted(project.getUserEmail(), project.getProjectPath(), daily.getDate(),
+                    daily.getCodingTime(), daily.getOpenTime());
+        }
+        activityStreamService.resyncAfterCommit(project.getUserEmail());
+        ingestionMetrics.recordProjectRows(project);
+        // Строка проекта записана мимо JPA, поэтому ответ собирается заново из базы
+        entityManager.clear();
+        return findDetailed(projectId).orElseThrow();
+    }
+
+    private void insertFiles(long projectId, ProjectStats project) {
+        ProjectStats saved = entityManager.getReference(ProjectStats.class, projectId);
+        if (project.getFiles() != null) {
+            for (FileStats file : project.getFiles()) {
+                file.setProject(saved);
+                if (file.getDailyStats() != null) {
+                    file.getDailyStats().forEach(daily -> daily.setProject(saved));
+                }
+            }
+            fileStatsRepository.saveAll(project.getFiles());
+        }
+        entityManager.flush();
+    }
+
+    // Повторы одного ключа внутри запроса складываются заранее: один INSERT ... ON CONFLICT DO UPDATE
+    // не может обновить строку дважды, а переписанный драйвером батч - это один INSERT.
+    // Итоги файлов возвращаются и пишутся позже, после дневных строк проекта
+    private List<StatsUpsertRepository.TotalsRow> mergeFileDailies(long projectId, ProjectStats project) {
+        List<FileStats> files = project.getFiles() != null ? project.getFiles() : List.of();
+        Map<String, Long> fileIds = statsUpsertRepository.upsertFiles(projectId,
+                files.stream().map(FileStats::getFilePath).toList());
+
+        Map<Long, Map<LocalDate, ActivityDelta>> fileDailies = new TreeMap<>();
+        Map<Long, ActivityDelta> fileTotals = new TreeMap<>();
+        for (FileStats file : files) {
+            Long fileId = fileIds.get(file.getFilePath());
+            fileTotals.merge(fileId, new ActivityDelta(file.getCodingTime(), file.getOpenTime()), ActivityDelta::plus);
+            if (file.getDailyStats() != null) {
+                Map<LocalDate, ActivityDelta> days = fileDailies.computeIfAbsent(fileId, k -> new TreeMap<>(DATE_ORDER));
+                for (DailyStats daily : file.getDailyStats()) {
+                    days.merge(daily.getDate(), new ActivityDelta(daily.getCodingTime(), daily.getOpenTime()), ActivityDelta::plus);
+                }
+            }
+        }
+        List<StatsUpsertRepository.DailyRow> fileRows = new ArrayList<>();
+        fileDailies.forEach((fileId, days) -> days.forEach((date, delta) -> fileRows.add(
+                new StatsUpsertRepository.DailyRow(projectId, fileId, date, delta.codingTime(), delta.openTime()))));
+        List<StatsUpsertRepository.TotalsRow> fileTotalRows = new ArrayList<>();
+        fileTotals.forEach((fileId, delta) -> fileTotalRows.add(
+                new StatsUpsertRepository.TotalsRow(fileId, delta.codingTime(), delta.openTime())));
+
+        statsUpsertRepository.addFileDailies(fileRows);
+        return fileTotalRows;
+    }
+
+    // Агрегированные строки проекта в обеих ветках складываются с существующими
+    private void addProjectDailies(long projectId, ProjectStats project) {
+        if (project.getDailyStats() == null) {
+            return;
+        }
+        Map<LocalDate, ActivityDelta> days = new TreeMap<>(DATE_ORDER);
+        for (DailyStats daily : project.getDailyStats()) {
+            days.merge(daily.getDate(), new ActivityDelta(daily.getCodingTime(), daily.getOpenTime()), ActivityDelta::plus);
+        }
+        List<StatsUpsertRepository.DailyRow> rows = new ArrayList<>();
+        days.forEach((date, delta) -> rows.add(
+                new StatsUpsertRepository.DailyRow(projectId, null, date, delta.codingTime(), delta.openTime())));
+        statsUpsertRepository.addProjectDailies(rows);
+    }
+
+    // Повторы даты внутри файла складываются в первую строку этой даты: (file_id, date) уникален,
+    // а новый проект пишется через JPA без ON CONFLICT
+    static List<DailyStats> mergeDailyStatsByDate(List<DailyStats> dailyStats) {
+        if (dailyStats == null) {
+            return null;
+        }
+        Map<LocalDate, DailyStats> byDate = new LinkedHashMap<>();
+        for (DailyStats daily : dailyStats) {
+            DailyStats first = byDate.putIfAbsent(daily.getDate(), daily);
+            if (first != null) {
+                first.setCodingTime(first.getCodingTime() + daily.getCodingTime());
+                first.setOpenTime(first.getOpenTime() + daily.getOpenTime());
+            }
+        }
+        return byDate.size() == dailyStats.size() ? dailyStats : new ArrayList<>(byDate.values());
+    }
+
+    static void setTotalsFromDailyStats(FileStats file) {
+        long codingTime = 0;
+        long openTime = 0;
+        if (file.getDailyStats() != null) {
+            for (DailyStats daily : file.getDailyStats()) {
+                codingTime += daily.getCodingTime();
+                openTime += daily.getOpenTime();
+            }
+        }
+        file.setCodingTime(codingTime);
+        file.setOpenTime(openTime);
+    }
+
+    @Transactional
+    public void deleteProject(ProjectStats project) {
+        List<DailyTotals> dailyTotals = dailyStatsRepository.sumFileActivityByDate(project.getId());
+        userDailyStatsService.subtractDailyTotals(project.getUserEmail(), dailyTotals);
+        for (DailyTotals daily : dailyTotals) {
+            liveStatsService.recordCommitted(project.getUserEmail(), project.getProjectPath(), daily.getDate(),
+                    -daily.getCodingTime(), -daily.getOpenTime());
+        }
+        activityStreamService.resyncAfterCommit(project.getUserEmail());
+        projectStatsRepository.delete(project);
     }
 }
@@ -0,0 +1,89 @@
+package com.example.DevTimeTracker_Api.service;
+
+import com.example.DevTimeTracker_Api.dto.DailyActivity;
+import com.example.DevTimeTracker_Api.dto.DailyTotals;
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.UserDailyStats;
+import com.example.DevTimeTracker_Api.repository.UserDailyStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Поддерживает сводку user_daily_stats: сумма файловых DailyStats всех проектов пользователя по дням
+@Service
+public class UserDailyStatsService {
+    private final UserDailyStatsRepository userDailyStatsRepository;
+
+    public UserDailyStatsService(UserDailyStatsRepository userDailyStatsRepository) {
+        this.userDailyStatsRepository = userDailyStatsRepository;
+    }
+
+    @Transactional
+    public void addDailyStats(String userEmail, Collection<DailyStats> dailyStats) {
+        Map<LocalDate, long[]> totals = new TreeMap<>();
+        for (DailyStats daily : dailyStats) {
+            accumulate(totals, daily.getDate(), daily.getCodingTime(), daily.getOpenTime());
+        }
+        apply(userEmail, totals, 1);
+    }
+
+    @Transactional
+    public void subtractDailyStats(String userEmail, Collection<DailyStats> dailyStats) {
+        Map<LocalDate, long[]> totals = new TreeMap<>();
+        for (DailyStats daily : dailyStats) {
+            accumulate(totals, daily.getDate(), daily.getCodingTime(), daily.getOpenTime());
+        }
+        apply(userEmail, totals, -1);
+    }
+
+    @Transactional
+    public void subtractDailyTotals(String userEmail, Collection<DailyTotals> dailyTotals) {
+        Map<LocalDate, long[]> totals = new TreeMap<>();
+        for (DailyTotals daily : dailyTotals) {
+            accumulate(totals, daily.getDate(), daily.getCodingTime(), daily.getOpenTime());
+        }
+        apply(userEmail, totals, -1);
+    }
+
+    @Transactional
+    public void addActivity(String userEmail, LocalDate date, long codingTime, long openTime) {
+        userDailyStatsRepository.addActivity(userEmail, date, codingTime, openTime);
+    }
+
+    // Плотный ряд по дням: дни без активности возвращаются с нулями
+    @Transactional(readOnly = true)
+    public List<DailyActivity> getDailyActivity(String userEmail, LocalDate from, LocalDate to) {
+        List<UserDailyStats> rows = userDailyStatsRepository.findByUserEmailAndDateBetweenOrderByDateAsc(userEmail, from, to);
+        List<DailyActivity> result = new ArrayList<>();
+        int index = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (index < rows.size() && rows.get(index).getDate().equals(date)) {
+                UserDailyStats row = rows.get(index++);
+                result.add(new DailyActivity(date, row.getCodingTime(), row.getOpenTime()));
+            } else {
+                result.add(new DailyActivity(date, 0, 0));
+            }
+        }
+        return result;
+    }
+
+    private void accumulate(Map<LocalDate, long[]> totals, LocalDate date, Long codingTime, Long openTime) {
+        if (date == null) {
+            return;
+        }
+        long[] sums = totals.computeIfAbsent(date, d -> new long[2]);
+        sums[0] += codingTime != null ? codingTime : 0;
+        sums[1] += openTime != null ? openTime : 0;
+    }
+
+    // Строки сортированы по дате, чтобы параллельные транзакции брали блокировки в одном порядке
+    private void apply(String userEmail, Map<LocalDate, long[]> totals, int sign) {
+        totals.forEach((date, sums) -> userDailyStatsRepository.addActivity(userEmail, date, sign * sums[0], sign * sums[1]));
+    }
+}
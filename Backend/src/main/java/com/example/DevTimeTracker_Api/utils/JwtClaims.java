@@ -0,0 +1,16 @@
+package com.example.DevTimeTracker_Api.utils;
+
+import java.util.Date;
+
+// tokenType, tokenId и deviceId заполнены только у токенов, выданных сессии устройства
+public record JwtClaims(String subject, Date issuedAt, Date expiration,
+                        String tokenType, String tokenId, Long deviceId) {
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    public boolean isRefreshToken() {
+        return JwtUtil.REFRESH_TOKEN_TYPE.equals(tokenType);
+    }
+}
@@ -13,50 +13,82 @@ import java.util.Date;
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
 
-    private SecretKey getSigningKey() {
+    private static final String TOKEN_TYPE_CLAIM = "typ";
+    private static final String DEVICE_CLAIM = "sid";
+
+    // Время жизни access-токена, по умолчанию 10 часов
+    private final long expirationMillis;
+
+    // Ключ и парсер потокобезопасны, поэтому строятся один раз
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration-ms:36000000}") long expirationMillis) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
             throw new IllegalArgumentException("JWT Secret must be at least 32 bytes long.");
         }
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.expirationMillis = expirationMillis;
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
-    // Время жизни токена: 10 часов
-    private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 10;
-
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder()
+        return generateToken(userDetails, null);
+    }
+
+    // Access-токен сессии устройства несёт её id, чтобы запросы можно было связать с устройством
+    public String generateToken(UserDetails userDetails, Long deviceId) {
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userDetails.getUsername())  // email теперь в качестве subject
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMillis));
+        if (deviceId != null) {
+            builder.claim(DEVICE_CLAIM, deviceId);
+        }
+        return builder.signWith(signingKey, SignatureAlgorithm.HS256).compact();
+    }
+
+    // Refresh-токен годится только для /api/auth/refresh: JwtFilter его не принимает
+    public String generateRefreshToken(String subject, Long deviceId, String tokenId, Date expiration) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setId(tokenId)
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .claim(DEVICE_CLAIM, deviceId)
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(expiration)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    // Один разбор токена: подпись, срок действия и все нужные поля сразу.
+    // Невалидный или просроченный токен приводит к JwtException
+    public JwtClaims parseToken(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new JwtClaims(claims.getSubject(), claims.getIssuedAt(), claims.getExpiration(),
+                claims.get(TOKEN_TYPE_CLAIM, String.class), claims.getId(), claims.get(DEVICE_CLAIM, Long.class));
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseToken(token).subject();
+    }
+
+    public Date extractExpiration(String token) {
+        return parseToken(token).expiration();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String email = extractUsername(token);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        Date expiration = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
-        return expiration.before(new Date());
+        JwtClaims claims = parseToken(token);
+        return claims.subject().equals(userDetails.getUsername()) && !claims.isExpired();
     }
 }
@@ -1,12 +1,20 @@
 package com.example.DevTimeTracker_Api;
 
+import com.example.DevTimeTracker_Api.config.UserDailyStatsBackfill;
+import com.example.DevTimeTracker_Api.dto.HeartbeatRequest;
+import com.example.DevTimeTracker_Api.entity.DailyStats;
 import com.example.DevTimeTracker_Api.entity.FileStats;
 import com.example.DevTimeTracker_Api.entity.ProjectStats;
 import com.example.DevTimeTracker_Api.entity.User;
 import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
 import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.UserDailyStatsRepository;
 import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.example.DevTimeTracker_Api.service.ActivityBuffer;
+import com.example.DevTimeTracker_Api.service.FileStatsService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +23,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -38,6 +57,18 @@ public class ApiIntegrationTest {
     @Autowired
     private FileStatsRepository fileStatsRepository;
 
+    @Autowired
+    private UserDailyStatsRepository userDailyStatsRepository;
+
+    @Autowired
+    private ActivityBuffer activityBuffer;
+
+    @Autowired
+    private UserDailyStatsBackfill userDailyStatsBackfill;
+
+    @Autowired
+    private FileStatsService fileStatsService;
+
     private String jwtToken;
 
     @BeforeEach
@@ -72,6 +103,7 @@ public class ApiIntegrationTest {
         // Очистка данных после каждого теста
         fileStatsRepository.deleteAll();
         projectStatsRepository.deleteAll();
+        userDailyStatsRepository.deleteAll();
         userRepository.deleteAll();
     }
 
@@ -115,6 +147,51 @@ public class ApiIntegrationTest {
                 .andExpect(jsonPath("$.userEmail").value("test@example.com"));
     }
 
+    @Test
+    public void testCreateProjectDerivesTotals() throws Exception {
+        // Итоги от клиента игнорируются и считаются по дневным строкам
+        String project = "{\"projectPath\": \"/path/to/project\", \"totalCodingTime\": 999999, \"totalOpenTime\": 999999, \"files\": [" +
+                "{\"filePath\": \"/path/to/file\", \"codingTime\": 1, \"openTime\": 1, \"dailyStats\": [" +
+                "{\"date\": \"2025-01-14\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"date\": \"2025-01-15\", \"codingTime\": 10, \"openTime\": 20}]}]}";
+
+        mockMvc.perform(post("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(project))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCodingTime").value(40))
+                .andExpect(jsonPath("$.totalOpenTime").value(80))
+                .andExpect(jsonPath("$.files[0].codingTime").value(40))
+                .andExpect(jsonPath("$.files[0].openTime").value(80));
+
+        mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalCodingTime").value(40))
+                .andExpect(jsonPath("$[0].totalOpenTime").value(80));
+    }
+
+    // Повтор даты внутри файла складывается в одну строку и у нового, и у существующего проекта
+    @Test
+    public void testCreateProjectMergesRepeatedDates() throws Exception {
+        String project = "{\"projectPath\": \"/path/to/project\", \"files\": [" +
+                "{\"filePath\": \"/path/to/file\", \"dailyStats\": [" +
+                "{\"date\": \"2025-01-14\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"date\": \"2025-01-14\", \"codingTime\": 10, \"openTime\": 20}]}]}";
+
+        for (int i = 1; i <= 2; i++) {
+            mockMvc.perform(post("/api/projects")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(project))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalCodingTime").value(40 * i))
+                    .andExpect(jsonPath("$.files[0].dailyStats.length()").value(1))
+                    .andExpect(jsonPath("$.files[0].dailyStats[0].codingTime").value(40 * i));
+        }
+    }
+
     @Test
     public void testGetProject() throws Exception {
         ProjectStats project = new ProjectStats();
@@ -173,6 +250,39 @@ public class ApiIntegrationTest {
                 .andExpect(jsonPath("$[0].projectPath").value("/path/to/project"));
     }
 
+    @Test
+    public void testGetAllProjectsPaged() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            ProjectStats project = new ProjectStats();
+            project.setProjectPath("/path/to/project" + i);
+
+            mockMvc.perform(post("/api/projects")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(project)))
+                    .andExpect(status().isOk());
+        }
+
+        String nextCursor = mockMvc.perform(get("/api/projects")
+                        .param("limit", "2")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].projectPath").value("/path/to/project0"))
+                .andExpect(jsonPath("$[0].files").doesNotExist())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/projects")
+                        .param("limit", "2")
+                        .param("afterId", nextCursor)
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].projectPath").value("/path/to/project2"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
     @Test
     public void testCreateFile() throws Exception {
         FileStats file = new FileStats();
@@ -186,6 +296,44 @@ public class ApiIntegrationTest {
                 .andExpect(jsonPath("$.filePath").value("/path/to/file"));
     }
 
+    // Файл с уже существующим в проекте путём дописывается в ту же строку, а не нарушает уникальный ключ
+    @Test
+    public void testSaveFileTwiceMergesIntoOneFile() throws Exception {
+        ProjectStats created = new ProjectStats();
+        created.setProjectPath("/path/to/project");
+        String response = mockMvc.perform(post("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(created)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long projectId = objectMapper.readTree(response).get("id").asLong();
+
+        for (int i = 1; i <= 2; i++) {
+            ProjectStats project = projectStatsRepository.findById(String.valueOf(projectId)).orElseThrow();
+            FileStats file = new FileStats();
+            file.setFilePath("/path/to/file");
+            file.setProject(project);
+            DailyStats daily = new DailyStats();
+            daily.setDate(LocalDate.of(2025, 1, 15));
+            daily.setCodingTime(30);
+            daily.setOpenTime(60);
+            daily.setFile(file);
+            daily.setProject(project);
+            file.setDailyStats(new ArrayList<>(List.of(daily)));
+
+            FileStats saved = fileStatsService.saveFile(file);
+            assertEquals(30L * i, saved.getCodingTime());
+            assertEquals(1, saved.getDailyStats().size());
+        }
+
+        assertEquals(1, fileStatsRepository.count());
+        mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalCodingTime").value(60));
+    }
+
     @Test
     public void testGetFile() throws Exception {
         FileStats file = new FileStats();
@@ -227,6 +375,421 @@ public class ApiIntegrationTest {
                 .andExpect(content().string("File deleted"));
     }
 
+    @Test
+    public void testRecordHeartbeats() throws Exception {
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 10, \"openTime\": 20}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/other\", \"date\": \"2025-01-15\", \"codingTime\": 5, \"openTime\": 5}" +
+                "]";
+
+        // Повторная отправка должна обновлять существующие строки, а не создавать новые
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/heartbeats")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(heartbeats))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.accepted").value(3));
+        }
+        activityBuffer.flush();
+
+        mockMvc.perform(get("/api/projects")
+                        .param("expand", "true")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].projectPath").value("/path/to/project"))
+                .andExpect(jsonPath("$[0].totalCodingTime").value(90))
+                .andExpect(jsonPath("$[0].totalOpenTime").value(170))
+                .andExpect(jsonPath("$[0].files.length()").value(2));
+    }
+
+    @Test
+    public void testRecordHeartbeatsInvalidData() throws Exception {
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"projectPath\": \"/path/to/project\", \"date\": \"2025-01-15\", \"codingTime\": 30}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Heartbeat #0: file path cannot be empty"));
+    }
+
+    @Test
+    public void testRecordHeartbeatsPathTooLong() throws Exception {
+        String filePath = "/" + "a".repeat(HeartbeatRequest.MAX_PATH_LENGTH);
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"projectPath\": \"/path/to/project\", \"filePath\": \"" + filePath + "\", \"date\": \"2025-01-15\", \"codingTime\": 30}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Heartbeat #0: file path cannot be longer than 255 characters"));
+    }
+
+    // Строка, которую база не примет, не должна навсегда останавливать сброс остальных
+    @Test
+    public void testFlushDropsRowsThatCannotBeWritten() throws Exception {
+        long deadLettered = activityBuffer.getDeadLetterCount();
+        assertTrue(activityBuffer.offer("test@example.com", List.of(
+                heartbeat("/path/to/file", 30),
+                heartbeat("/" + "a".repeat(HeartbeatRequest.MAX_PATH_LENGTH), 10),
+                heartbeat("/path/to/other", 5))));
+
+        activityBuffer.flush();
+
+        assertEquals(0, activityBuffer.getPendingCount());
+        assertEquals(deadLettered + 1, activityBuffer.getDeadLetterCount());
+        mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].totalCodingTime").value(35));
+    }
+
+    @Test
+    public void testImportActivity() throws Exception {
+        String ndjson =
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2024-11-01\", \"codingTime\": 30, \"openTime\": 60}\n" +
+                "not json\n" +
+                "\n" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2024-11-01\", \"codingTime\": 10, \"openTime\": 20}\n" +
+                "{\"projectPath\": \"/path/to/project\", \"date\": \"2024-11-02\", \"codingTime\": 5}\n" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/other\", \"date\": \"2024-11-02\", \"codingTime\": 5, \"openTime\": 5}";
+
+        mockMvc.perform(post("/api/import")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.linesRead").value(6))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.committedLines").value(6))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[1].line").value(5))
+                .andExpect(jsonPath("$.errors[1].message").value("file path cannot be empty"));
+
+        mockMvc.perform(get("/api/projects")
+                        .param("expand", "true")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalCodingTime").value(45))
+                .andExpect(jsonPath("$[0].files.length()").value(2));
+    }
+
+    @Test
+    public void testExportActivity() throws Exception {
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file,with,commas\", \"date\": \"2025-01-16\", \"codingTime\": 5, \"openTime\": 5}" +
+                "]";
+
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeats))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+
+        MvcResult csv = mockMvc.perform(get("/api/export")
+                        .param("format", "csv")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(
+                        "projectPath,filePath,date,codingTime,openTime\n" +
+                        "/path/to/project,/path/to/file,2025-01-15,30,60\n" +
+                        "/path/to/project,\"/path/to/file,with,commas\",2025-01-16,5,5\n"));
+
+        MvcResult ndjson = mockMvc.perform(get("/api/export")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(30, objectMapper.readTree(lines[0]).get("codingTime").asLong());
+
+        mockMvc.perform(get("/api/export")
+                        .param("format", "xml")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetDailyStats() throws Exception {
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/other-project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 10, \"openTime\": 20}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-16\", \"codingTime\": 5, \"openTime\": 5}" +
+                "]";
+
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeats))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+
+        mockMvc.perform(get("/api/stats/daily")
+                        .param("from", "2025-01-14")
+                        .param("to", "2025-01-16")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].codingTime").value(0))
+                .andExpect(jsonPath("$[1].date").value("2025-01-15"))
+                .andExpect(jsonPath("$[1].codingTime").value(40))
+                .andExpect(jsonPath("$[1].openTime").value(80))
+                .andExpect(jsonPath("$[2].codingTime").value(5));
+    }
+
+    // История, записанная до появления user_daily_stats, восстанавливается из daily_stats
+    @Test
+    public void testBackfillUserDailyStats() throws Exception {
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/other-project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 10, \"openTime\": 20}" +
+                "]";
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeats))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+        userDailyStatsRepository.deleteAll();
+
+        userDailyStatsBackfill.backfill();
+        // Повторный запуск ничего не удваивает
+        userDailyStatsBackfill.backfill();
+
+        mockMvc.perform(get("/api/stats/daily")
+                        .param("from", "2025-01-15")
+                        .param("to", "2025-01-15")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].codingTime").value(40))
+                .andExpect(jsonPath("$[0].openTime").value(80));
+    }
+
+    @Test
+    public void testGetTodayStats() throws Exception {
+        // Живые счётчики переживают очистку базы между тестами, поэтому у теста свой пользователь
+        String jwtToken = ProjectTestSupport.registerAndLogin(mockMvc, objectMapper, "today@example.com");
+        String today = LocalDate.now().toString();
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"" + today + "\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/other\", \"filePath\": \"/path/to/file\", \"date\": \"" + today + "\", \"codingTime\": 10, \"openTime\": 20}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 5, \"openTime\": 5}" +
+                "]";
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeats))
+                .andExpect(status().isAccepted());
+
+        // Счётчики видят время ещё до сброса буфера, а после сброса не считают его второй раз
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/stats/today")
+                            .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.date").value(today))
+                    .andExpect(jsonPath("$.codingTime").value(40))
+                    .andExpect(jsonPath("$.openTime").value(80))
+                    .andExpect(jsonPath("$.projects.length()").value(2))
+                    .andExpect(jsonPath("$.projects[0].projectPath").value("/path/to/project"))
+                    .andExpect(jsonPath("$.projects[0].codingTime").value(30));
+            activityBuffer.flush();
+        }
+    }
+
+    @Test
+    public void testStreamActivity() throws Exception {
+        String today = LocalDate.now().toString();
+        MvcResult stream = mockMvc.perform(get("/api/stats/stream")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"" + today + "\", \"codingTime\": 30, \"openTime\": 60}]"))
+                .andExpect(status().isAccepted());
+
+        // Дельты отправляются из потока sender-а, поэтому ждём появления события в ответе целиком
+        String activity = "event:activity\ndata:[{\"projectPath\":\"/path/to/project\",\"filePath\":\"/path/to/file\",\"date\":\"" + today + "\",\"codingTime\":30,\"openTime\":60}]";
+        String events = stream.getResponse().getContentAsString();
+        for (long deadline = System.currentTimeMillis() + 5000; !events.contains(activity) && System.currentTimeMillis() < deadline; ) {
+            Thread.sleep(20);
+            events = stream.getResponse().getContentAsString();
+        }
+        assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(MediaType.parseMediaType(stream.getResponse().getContentType())));
+        assertTrue(events.startsWith("event:snapshot"), events);
+        assertTrue(events.contains(activity), events);
+        // Иначе плановый сброс записал бы heartbeat уже в базу следующего теста
+        activityBuffer.flush();
+    }
+
+    @Test
+    public void testStreamActivityUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/stats/stream"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testGetProjectDateWindow() throws Exception {
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-14\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-15\", \"codingTime\": 10, \"openTime\": 20}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-16\", \"codingTime\": 5, \"openTime\": 5}" +
+                "]";
+
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeats))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+
+        String projects = mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastActiveDate").value("2025-01-16"))
+                .andReturn().getResponse().getContentAsString();
+        long projectId = objectMapper.readTree(projects).get(0).get("id").asLong();
+
+        String project = mockMvc.perform(get("/api/projects/" + projectId)
+                        .param("from", "2025-01-15")
+                        .param("to", "2025-01-16")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCodingTime").value(45))
+                .andExpect(jsonPath("$.dailyStats.length()").value(2))
+                .andExpect(jsonPath("$.dailyStats[0].date").value("2025-01-15"))
+                .andExpect(jsonPath("$.files[0].dailyStats.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        long fileId = objectMapper.readTree(project).get("files").get(0).get("id").asLong();
+
+        mockMvc.perform(get("/api/files/" + fileId)
+                        .param("to", "2025-01-14")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dailyStats.length()").value(1))
+                .andExpect(jsonPath("$.dailyStats[0].codingTime").value(30));
+
+        mockMvc.perform(get("/api/projects/" + projectId)
+                        .param("from", "2025-01-16")
+                        .param("to", "2025-01-15")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testCompactEncodings() throws Exception {
+        String heartbeats = "[" +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-14\", \"codingTime\": 30, \"openTime\": 60}," +
+                "{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-16\", \"codingTime\": 5, \"openTime\": 5}" +
+                "]";
+
+        // Тело запроса в gzip
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(heartbeats.getBytes(StandardCharsets.UTF_8));
+        }
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("Content-Encoding", "gzip")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+
+        String projects = mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long projectId = objectMapper.readTree(projects).get(0).get("id").asLong();
+
+        mockMvc.perform(get("/api/projects/" + projectId)
+                        .param("layout", "columnar")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.daily.start").value("2025-01-14"))
+                .andExpect(jsonPath("$.daily.days[1]").value(2))
+                .andExpect(jsonPath("$.daily.codingTime[0]").value(30))
+                .andExpect(jsonPath("$.files[0].daily.openTime[1]").value(5));
+
+        byte[] smile = mockMvc.perform(get("/api/projects/" + projectId)
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode decoded = new SmileMapper().readTree(smile);
+        assertEquals("/path/to/project", decoded.get("projectPath").asText());
+        assertEquals(35, decoded.get("totalCodingTime").asLong());
+
+        mockMvc.perform(get("/api/projects/" + projectId)
+                        .param("layout", "rows")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testProjectBadge() throws Exception {
+        String heartbeat = "[{\"projectPath\": \"/path/to/project\", \"filePath\": \"/path/to/file\", \"date\": \"2025-01-14\", \"codingTime\": 3600, \"openTime\": 60}]";
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeat))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+
+        String projects = mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long projectId = objectMapper.readTree(projects).get(0).get("id").asLong();
+
+        mockMvc.perform(get("/api/badges/" + projectId + ".svg"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(put("/api/badges/" + projectId)
+                        .param("public", "true")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.public").value(true));
+
+        MvcResult badge = mockMvc.perform(get("/api/badges/" + projectId + ".svg"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("image/svg+xml"))
+                .andExpect(header().string("Cache-Control", containsString("max-age")))
+                .andExpect(content().string(containsString("1h 0m")))
+                .andReturn();
+        String etag = badge.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/badges/" + projectId + ".svg").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Новая активность меняет итог проекта и сбрасывает закэшированный бейдж
+        mockMvc.perform(post("/api/heartbeats")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(heartbeat))
+                .andExpect(status().isAccepted());
+        activityBuffer.flush();
+
+        mockMvc.perform(get("/api/badges/" + projectId + ".svg").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("2h 0m")));
+    }
+
     @Test
     public void testAccessDeniedForOtherUserProject() throws Exception {
         ProjectStats project = new ProjectStats();
@@ -261,4 +824,14 @@ public class ApiIntegrationTest {
                 .andExpect(status().isForbidden())
                 .andExpect(jsonPath("$.message").value("You do not have access to this project"));
     }
-}
\ No newline at end of file
+
+    private static HeartbeatRequest heartbeat(String filePath, long codingTime) {
+        HeartbeatRequest heartbeat = new HeartbeatRequest();
+        heartbeat.setProjectPath("/path/to/project");
+        heartbeat.setFilePath(filePath);
+        heartbeat.setDate(LocalDate.of(2025, 1, 15));
+        heartbeat.setCodingTime(codingTime);
+        heartbeat.setOpenTime(codingTime);
+        return heartbeat;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.DevTimeTracker_Api.Auth;
 
 import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -9,7 +11,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -23,6 +28,9 @@ public class AuthControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final String EMAIL_BASE = "test@example.com";
 
     private String generateUniqueEmail() {
@@ -56,4 +64,74 @@ public class AuthControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string(Matchers.not(Matchers.emptyString()))); // Проверяем, что токен возвращён
     }
+
+    @Test
+    public void testDeviceSessionRefreshRotation() throws Exception {
+        String email = "test+" + RandomStringUtils.randomAlphabetic(8) + "@example.com";
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + email + "\", \"password\": \"123\"}"))
+                .andExpect(status().isOk());
+
+        JsonNode session = readJson(mockMvc.perform(post("/api/auth/device-login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + email + "\", \"password\": \"123\", \"deviceName\": \"Laptop\", \"ide\": \"IntelliJ\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String firstRefresh = session.get("refreshToken").asText();
+
+        // Refresh-токен не годится как access-токен
+        mockMvc.perform(get("/api/auth/devices").header("Authorization", "Bearer " + firstRefresh))
+                .andExpect(status().isUnauthorized());
+
+        JsonNode rotated = readJson(refresh(firstRefresh)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String secondRefresh = rotated.get("refreshToken").asText();
+
+        mockMvc.perform(get("/api/auth/devices").header("Authorization", "Bearer " + rotated.get("accessToken").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].deviceName").value("Laptop"))
+                .andExpect(jsonPath("$[0].active").value(true));
+
+        // Повторное использование старого токена отзывает сессию целиком
+        refresh(firstRefresh).andExpect(status().isUnauthorized());
+        refresh(secondRefresh).andExpect(status().isUnauthorized());
+    }
+
+    // Отзыв устройства закрывает и уже выданный access-токен, а не только обмен refresh-токена
+    @Test
+    public void testRevokedDeviceAccessTokenIsRejected() throws Exception {
+        String email = "test+" + RandomStringUtils.randomAlphabetic(8) + "@example.com";
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + email + "\", \"password\": \"123\"}"))
+                .andExpect(status().isOk());
+
+        JsonNode session = readJson(mockMvc.perform(post("/api/auth/device-login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + email + "\", \"password\": \"123\", \"deviceName\": \"Laptop\", \"ide\": \"IntelliJ\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String accessToken = session.get("accessToken").asText();
+
+        mockMvc.perform(get("/api/auth/devices").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/auth/devices/" + session.get("deviceId").asLong())
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/auth/devices").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + refreshToken + "\"}"));
+    }
+
+    private JsonNode readJson(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
 }
\ No newline at end of file
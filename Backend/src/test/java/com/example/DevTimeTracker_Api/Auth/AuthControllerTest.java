@@ -3,7 +3,11 @@ package com.example.DevTimeTracker_Api.Auth;
 import com.example.DevTimeTracker_Api.controller.AuthController;
 import com.example.DevTimeTracker_Api.entity.User;
 import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.example.DevTimeTracker_Api.security.BoundedPasswordEncoder;
+import com.example.DevTimeTracker_Api.security.PasswordHashingRejectedException;
+import com.example.DevTimeTracker_Api.service.DeviceSessionService;
 import com.example.DevTimeTracker_Api.utils.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,13 +18,16 @@ import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -45,6 +52,9 @@ public class AuthControllerTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private DeviceSessionService deviceSessionService;
+
     @InjectMocks
     private AuthController authController;
 
@@ -138,4 +148,76 @@ public class AuthControllerTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message").value("Invalid email or password"));
     }
+
+    @Test
+    public void testLoginRejectedWhenHashingSaturated() throws Exception {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new PasswordHashingRejectedException("Password hashing queue is full"));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"test@example.com\", \"password\": \"plainPassword\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Too many authentication requests, retry later"));
+
+        verify(jwtUtil, never()).generateToken(any());
+    }
+
+    // Неизвестный email: настоящий DaoAuthenticationProvider сверяет пароль с заглушкой на пуле, который не успевает
+    @Test
+    public void testLoginOfUnknownUserRejectedWhenHashingSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+        BoundedPasswordEncoder saturated = new BoundedPasswordEncoder(blockingEncoder, 1, 1, 50, new SimpleMeterRegistry());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(saturated);
+        provider.setUserDetailsService(userDetailsService);
+        when(userDetailsService.loadUserByUsername("unknown@example.com"))
+                .thenThrow(new UsernameNotFoundException("User not found"));
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenAnswer(invocation -> provider.authenticate(invocation.getArgument(0)));
+
+        try {
+            mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\": \"unknown@example.com\", \"password\": \"plainPassword\"}"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            release.countDown();
+            saturated.shutdown();
+        }
+
+        verify(jwtUtil, never()).generateToken(any());
+    }
+
+    @Test
+    public void testRefreshRejectedToken() throws Exception {
+        when(deviceSessionService.refresh("oldRefreshToken"))
+                .thenThrow(new BadCredentialsException("Refresh token has already been used"));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"oldRefreshToken\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Refresh token has already been used"));
+
+        verify(authenticationManager, never()).authenticate(any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.example.DevTimeTracker_Api.Auth;
+
+import com.example.DevTimeTracker_Api.security.JwtAuthenticationCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtAuthenticationCacheTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Test
+    public void testReturnsCachedUserUntilEvicted() {
+        JwtAuthenticationCache cache = new JwtAuthenticationCache(100, HOUR);
+        UserDetails user = userDetails("cache@example.com");
+        cache.put("token", user, new Date(System.currentTimeMillis() + HOUR));
+
+        assertSame(user, cache.get("token"));
+
+        cache.evictUser("cache@example.com");
+        assertNull(cache.get("token"));
+    }
+
+    // Токен, проверенный до коммита отзыва, не возвращается в кэш после evictDevice
+    @Test
+    public void testEvictsRevokedDevice() {
+        JwtAuthenticationCache cache = new JwtAuthenticationCache(100, HOUR);
+        Date expiration = new Date(System.currentTimeMillis() + HOUR);
+        cache.put("device", userDetails("cache@example.com"), expiration, 1L);
+        cache.put("other", userDetails("cache@example.com"), expiration, 2L);
+
+        cache.evictDevice(1L);
+        assertNull(cache.get("device"));
+        assertNotNull(cache.get("other"));
+
+        cache.put("device", userDetails("cache@example.com"), expiration, 1L);
+        assertNull(cache.get("device"));
+    }
+
+    @Test
+    public void testDoesNotOutliveToken() {
+        JwtAuthenticationCache cache = new JwtAuthenticationCache(100, HOUR);
+        cache.put("expired", userDetails("cache@example.com"), new Date(System.currentTimeMillis() - 1));
+
+        assertNull(cache.get("expired"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        JwtAuthenticationCache cache = new JwtAuthenticationCache(10, HOUR);
+        Date expiration = new Date(System.currentTimeMillis() + HOUR);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token" + i, userDetails("user" + i + "@example.com"), expiration);
+        }
+
+        assertTrue(cache.size() <= 10, "Cache grew to " + cache.size() + " entries");
+        assertNotNull(cache.get("token99"));
+    }
+
+    private UserDetails userDetails(String email) {
+        return new User(email, "password", new ArrayList<>());
+    }
+}
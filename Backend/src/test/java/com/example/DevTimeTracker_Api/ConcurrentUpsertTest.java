@@ -0,0 +1,219 @@
+package com.example.DevTimeTracker_Api;
+
+import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
+import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.UserDailyStatsRepository;
+import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.example.DevTimeTracker_Api.service.ActivityDelta;
+import com.example.DevTimeTracker_Api.service.ActivityKey;
+import com.example.DevTimeTracker_Api.service.ActivityService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Несколько устройств пишут один и тот же проект одновременно: ни дублей, ни потерянного времени,
+// ни deadlock-ов. Время прогона пишется в лог для сравнения под нагрузкой
+@SpringBootTest
+@AutoConfigureMockMvc
+@Slf4j
+public class ConcurrentUpsertTest {
+
+    private static final String EMAIL = "devices@example.com";
+    private static final int DEVICES = 8;
+    private static final int ROUNDS = 5;
+    private static final int FILES = 3;
+    private static final int DAYS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProjectStatsRepository projectStatsRepository;
+
+    @Autowired
+    private FileStatsRepository fileStatsRepository;
+
+    @Autowired
+    private UserDailyStatsRepository userDailyStatsRepository;
+
+    private String jwtToken;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        cleanup();
+        jwtToken = ProjectTestSupport.registerAndLogin(mockMvc, objectMapper, EMAIL);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ProjectTestSupport.cleanup(fileStatsRepository, projectStatsRepository, userDailyStatsRepository, userRepository);
+    }
+
+    @Test
+    public void testConcurrentCreateProjectMergesIntoOneProject() throws Exception {
+        String payload = objectMapper.writeValueAsString(ProjectTestSupport.buildProject("/devices", FILES, DAYS));
+
+        long elapsedMs = runConcurrently(device -> {
+            mockMvc.perform(post("/api/projects")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(payload))
+                    .andExpect(status().isOk());
+        });
+        log.info("createProject: {} devices x {} rounds in {} ms", DEVICES, ROUNDS, elapsedMs);
+
+        assertProjectTotals(DEVICES * ROUNDS * 60L);
+    }
+
+    @Test
+    public void testConcurrentHeartbeatBatchesDoNotLoseTime() throws Exception {
+        Map<ActivityKey, ActivityDelta> batch = buildDeltas();
+        // Половина устройств перечисляет ключи в обратном порядке: без сортировки это давало бы deadlock-и
+        Map<ActivityKey, ActivityDelta> reversed = reverse(batch);
+
+        long elapsedMs = runConcurrently(device -> activityService.applyDeltas(device % 2 == 0 ? batch : reversed));
+        log.info("applyDeltas: {} devices x {} rounds in {} ms", DEVICES, ROUNDS, elapsedMs);
+
+        assertProjectTotals(DEVICES * ROUNDS * 60L);
+    }
+
+    // Сброс heartbeat-ов и POST /api/projects по одному проекту одновременно: пути записи берут блокировки в одном порядке
+    @Test
+    public void testConcurrentHeartbeatsAndCreateProjectDoNotDeadlock() throws Exception {
+        String payload = objectMapper.writeValueAsString(ProjectTestSupport.buildProject("/devices", FILES, DAYS));
+        Map<ActivityKey, ActivityDelta> batch = buildDeltas();
+        // Проект уже есть: запросы идут по ветке слияния, а не вставки
+        activityService.applyDeltas(batch);
+
+        long elapsedMs = runConcurrently(device -> {
+            if (device % 2 == 0) {
+                activityService.applyDeltas(batch);
+            } else {
+                mockMvc.perform(post("/api/projects")
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(payload))
+                        .andExpect(status().isOk());
+            }
+        });
+        log.info("applyDeltas and createProject: {} devices x {} rounds in {} ms", DEVICES, ROUNDS, elapsedMs);
+
+        assertProjectTotals((DEVICES * ROUNDS + 1) * 60L);
+    }
+
+    // По 60 секунд кода и 120 открытия на каждый файл и день - как у ProjectTestSupport.buildProject
+    private Map<ActivityKey, ActivityDelta> buildDeltas() {
+        Map<ActivityKey, ActivityDelta> batch = new LinkedHashMap<>();
+        for (int f = 0; f < FILES; f++) {
+            for (int d = 0; d < DAYS; d++) {
+                batch.put(new ActivityKey(EMAIL, "/devices", "/devices/File" + f + ".java", ProjectTestSupport.START.plusDays(d)),
+                        new ActivityDelta(60, 120));
+            }
+        }
+        return batch;
+    }
+
+    private static Map<ActivityKey, ActivityDelta> reverse(Map<ActivityKey, ActivityDelta> batch) {
+        List<Map.Entry<ActivityKey, ActivityDelta>> entries = new ArrayList<>(batch.entrySet());
+        Collections.reverse(entries);
+        Map<ActivityKey, ActivityDelta> reversed = new LinkedHashMap<>();
+        entries.forEach(entry -> reversed.put(entry.getKey(), entry.getValue()));
+        return reversed;
+    }
+
+    private interface DeviceWrite {
+        void write(int device) throws Exception;
+    }
+
+    // Все устройства стартуют одновременно и пишут ROUNDS раз подряд
+    private long runConcurrently(DeviceWrite write) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(DEVICES);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < DEVICES; i++) {
+                int device = i;
+                Callable<Void> task = () -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        write.write(device);
+                    }
+                    return null;
+                };
+                results.add(executor.submit(task));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+            return (System.nanoTime() - begin) / 1_000_000;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Один проект, по строке на файл и на день, в каждой строке дня - время всех записей
+    private void assertProjectTotals(long codingTimePerDay) throws Exception {
+        JsonNode projects = objectMapper.readTree(mockMvc.perform(get("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(1, projects.size());
+        assertEquals(codingTimePerDay * FILES * DAYS, projects.get(0).get("totalCodingTime").asLong());
+        assertEquals(2 * codingTimePerDay * FILES * DAYS, projects.get(0).get("totalOpenTime").asLong());
+
+        JsonNode project = objectMapper.readTree(mockMvc.perform(get("/api/projects/" + projects.get(0).get("id").asLong())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(FILES, project.get("files").size());
+        // В dailyStats проекта - его агрегированные строки и строки его файлов, по одной на день
+        assertEquals(DAYS * (FILES + 1), project.get("dailyStats").size());
+        long projectCodingTime = 0;
+        for (JsonNode daily : project.get("dailyStats")) {
+            projectCodingTime += daily.get("codingTime").asLong();
+        }
+        assertEquals(2 * codingTimePerDay * FILES * DAYS, projectCodingTime);
+        for (JsonNode file : project.get("files")) {
+            assertEquals(codingTimePerDay * DAYS, file.get("codingTime").asLong());
+            assertEquals(DAYS, file.get("dailyStats").size());
+            for (JsonNode daily : file.get("dailyStats")) {
+                assertEquals(codingTimePerDay, daily.get("codingTime").asLong());
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.DevTimeTracker_Api;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.service.DailyStatsAggregator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DailyStatsAggregatorTest {
+
+    private final DailyStatsAggregator aggregator = new DailyStatsAggregator();
+
+    @Test
+    public void testSumsFilesPerDayInDateOrder() {
+        List<FileStats> files = List.of(
+                file(daily("2025-01-02", 10, 20), daily("2025-01-01", 1, 2)),
+                file(daily("2025-01-02", 5, 5), daily("2025-01-04", 0, 0)));
+
+        List<DailyStats> result = aggregator.aggregate(files);
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 4)),
+                result.stream().map(DailyStats::getDate).toList());
+        assertArrayEquals(new long[]{1, 15, 0}, result.stream().mapToLong(DailyStats::getCodingTime).toArray());
+        assertArrayEquals(new long[]{2, 25, 0}, result.stream().mapToLong(DailyStats::getOpenTime).toArray());
+    }
+
+    @Test
+    public void testWideDateSpreadMatchesDenseResult() {
+        List<FileStats> files = List.of(
+                file(daily("0001-01-01", 1, 1), daily("2025-06-01", 2, 2)),
+                file(daily("9999-12-31", 3, 3), daily("2025-06-01", 4, 4)));
+
+        Map<LocalDate, Long> coding = toCodingMap(aggregator.aggregate(files));
+
+        assertEquals(Map.of(LocalDate.of(1, 1, 1), 1L, LocalDate.of(2025, 6, 1), 6L, LocalDate.of(9999, 12, 31), 3L), coding);
+    }
+
+    @Test
+    public void testCollapsesRowsWithoutDate() {
+        List<FileStats> files = List.of(
+                file(daily(null, 1, 1), daily("2025-02-28", 3, 3)),
+                file(daily(null, 4, 4), daily("2025-02-28", 5, 5)));
+
+        Map<LocalDate, Long> coding = toCodingMap(aggregator.aggregate(files));
+
+        Map<LocalDate, Long> expected = new HashMap<>();
+        expected.put(null, 5L);
+        expected.put(LocalDate.of(2025, 2, 28), 8L);
+        assertEquals(expected, coding);
+    }
+
+    private Map<LocalDate, Long> toCodingMap(List<DailyStats> dailyStats) {
+        Map<LocalDate, Long> result = new HashMap<>();
+        for (DailyStats daily : dailyStats) {
+            result.put(daily.getDate(), daily.getCodingTime());
+        }
+        return result;
+    }
+
+    private FileStats file(DailyStats... dailyStats) {
+        FileStats file = new FileStats();
+        file.setDailyStats(new ArrayList<>(List.of(dailyStats)));
+        return file;
+    }
+
+    private DailyStats daily(String date, long codingTime, long openTime) {
+        DailyStats daily = new DailyStats();
+        daily.setDate(date != null ? LocalDate.parse(date) : null);
+        daily.setCodingTime(codingTime);
+        daily.setOpenTime(openTime);
+        return daily;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.DevTimeTracker_Api;
+
+import com.example.DevTimeTracker_Api.config.DailyStatsPartitions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Партиционирование и отсоединение старых месяцев на копии схемы в отдельном schema:
+// общая daily_stats остальных тестов не трогается
+@SpringBootTest
+public class DailyStatsPartitionsTest {
+
+    private static final String SCHEMA = "partitions_test";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Connection connection;
+    private JdbcTemplate jdbcTemplate;
+    private DailyStatsPartitions partitions;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        connection = dataSource.getConnection();
+        SingleConnectionDataSource schemaDataSource = new SingleConnectionDataSource(connection, true);
+        jdbcTemplate = new JdbcTemplate(schemaDataSource);
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+        jdbcTemplate.execute("CREATE TABLE project_stats (id bigint PRIMARY KEY, project_path varchar(255))");
+        jdbcTemplate.execute("CREATE TABLE file_stats (id bigint PRIMARY KEY, project_id bigint REFERENCES project_stats (id), " +
+                "file_path varchar(255))");
+        jdbcTemplate.execute("CREATE TABLE daily_stats (id bigint NOT NULL, project_id bigint, file_id bigint, date date, " +
+                "coding_time bigint NOT NULL, open_time bigint NOT NULL)");
+
+        // Хранится один прошлый месяц, партиции наперёд не нужны
+        partitions = new DailyStatsPartitions(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(schemaDataSource)), true, 0, 1);
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        jdbcTemplate.execute("SET search_path TO DEFAULT");
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        connection.close();
+    }
+
+    @Test
+    public void testDeleteProjectAfterPartitionIsDetached() {
+        LocalDate old = LocalDate.now().minusMonths(3).withDayOfMonth(1);
+        LocalDate recent = LocalDate.now().withDayOfMonth(1);
+        jdbcTemplate.update("INSERT INTO project_stats (id, project_path) VALUES (1, '/archived')");
+        jdbcTemplate.update("INSERT INTO file_stats (id, project_id, file_path) VALUES (1, 1, '/archived/Main.java')");
+        jdbcTemplate.update("INSERT INTO daily_stats VALUES (1, 1, 1, ?, 60, 120), (2, 1, NULL, ?, 60, 120), " +
+                "(3, 1, 1, ?, 30, 60), (4, 1, NULL, ?, 30, 60)", old, old, recent, recent);
+
+        partitions.convertIfEnabled();
+        partitions.maintain();
+
+        String archive = "daily_stats_archive_" + old.getYear() + String.format("%02d", old.getMonthValue());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + archive, Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM daily_stats", Integer.class));
+
+        // Как при удалении проекта через JPA: дневные строки, файлы, затем сам проект
+        jdbcTemplate.update("DELETE FROM daily_stats WHERE project_id = 1");
+        jdbcTemplate.update("DELETE FROM file_stats WHERE project_id = 1");
+        jdbcTemplate.update("DELETE FROM project_stats WHERE id = 1");
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM project_stats", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + archive, Integer.class));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.DevTimeTracker_Api;
+
+import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
+import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Замер числа JDBC-обращений при создании проекта реалистичного размера
+@SpringBootTest
+@AutoConfigureMockMvc
+@Slf4j
+public class ProjectBatchInsertTest {
+
+    private static final int FILES = 200;
+    private static final int DAYS = 90;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProjectStatsRepository projectStatsRepository;
+
+    @Autowired
+    private FileStatsRepository fileStatsRepository;
+
+    private String jwtToken;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        cleanup();
+        jwtToken = ProjectTestSupport.registerAndLogin(mockMvc, objectMapper, "batch@example.com");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ProjectTestSupport.cleanup(fileStatsRepository, projectStatsRepository, userRepository);
+    }
+
+    @Test
+    public void testCreateProjectUsesBatchedInserts() throws Exception {
+        String payload = objectMapper.writeValueAsString(ProjectTestSupport.buildProject("/bench/project", FILES, DAYS));
+        // проект + файлы + дневные строки файлов + агрегированные дневные строки проекта
+        long rows = 1 + FILES + (long) FILES * DAYS + DAYS;
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            long start = System.nanoTime();
+            mockMvc.perform(post("/api/projects")
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(payload))
+                    .andExpect(status().isOk());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            long statements = statistics.getPrepareStatementCount();
+            log.info("createProject: {} rows written with {} JDBC statements in {} ms", rows, statements, elapsedMs);
+
+            // С IDENTITY каждая строка была отдельным INSERT; с батчами остаются единицы процентов
+            assertTrue(statements < rows / 10,
+                    "Expected batched inserts, but " + statements + " statements were prepared for " + rows + " rows");
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.DevTimeTracker_Api;
+
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import com.example.DevTimeTracker_Api.repository.FileStatsRepository;
+import com.example.DevTimeTracker_Api.repository.ProjectStatsRepository;
+import com.example.DevTimeTracker_Api.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Число SQL-запросов на чтение проекта/файла не должно зависеть от количества файлов и дней
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProjectFetchPlanTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProjectStatsRepository projectStatsRepository;
+
+    @Autowired
+    private FileStatsRepository fileStatsRepository;
+
+    private String jwtToken;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        cleanup();
+        jwtToken = ProjectTestSupport.registerAndLogin(mockMvc, objectMapper, "fetch@example.com");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ProjectTestSupport.cleanup(fileStatsRepository, projectStatsRepository, userRepository);
+    }
+
+    @Test
+    public void testGetProjectUsesConstantNumberOfStatements() throws Exception {
+        JsonNode small = createProject("/small", 5, 3);
+        long smallStatements = countStatements(get("/api/projects/" + small.get("id").asLong()), 5);
+        long smallPageStatements = countStatements(get("/api/projects").param("expand", "true"), -1);
+
+        JsonNode large = createProject("/large", 500, 3);
+        long largeStatements = countStatements(get("/api/projects/" + large.get("id").asLong()), 500);
+        long largePageStatements = countStatements(get("/api/projects").param("expand", "true"), -1);
+
+        assertEquals(smallStatements, largeStatements,
+                "Fetching a 500-file project should cost as many statements as a 5-file one");
+        assertEquals(smallPageStatements, largePageStatements,
+                "Expanding a page should not cost extra statements per project or per file");
+    }
+
+    @Test
+    public void testGetFileUsesSingleQuery() throws Exception {
+        JsonNode project = createProject("/files", 2, 90);
+        long fileId = project.get("files").get(0).get("id").asLong();
+
+        long statements = countStatements(get("/api/files/" + fileId), -1);
+
+        // Не больше запроса пользователя в JwtFilter и одного запроса по плану выборки
+        assertTrue(statements <= 2, "File with its daily stats should be loaded with a single query, got " + statements);
+    }
+
+    private long countStatements(MockHttpServletRequestBuilder request, int expectedFiles) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Статистика уже включена для метрик; возвращаем прежнее состояние, чтобы не выключить её остальным тестам
+        boolean wasEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            var result = mockMvc.perform(request.header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk());
+            if (expectedFiles >= 0) {
+                result.andExpect(jsonPath("$.files.length()").value(expectedFiles));
+            }
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(wasEnabled);
+        }
+    }
+
+    private JsonNode createProject(String path, int fileCount, int dayCount) throws Exception {
+        ProjectStats project = ProjectTestSupport.buildProject(path, fileCount, dayCount);
+        String response = mockMvc.perform(post("/api/projects")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(project)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.DevTimeTracker_Api;
+
+import com.example.DevTimeTracker_Api.entity.DailyStats;
+import com.example.DevTimeTracker_Api.entity.FileStats;
+import com.example.DevTimeTracker_Api.entity.ProjectStats;
+import com.example.DevTimeTracker_Api.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Общая подготовка для тестов записи и чтения проектов: пользователь с токеном, очистка и проект заданного размера
+public final class ProjectTestSupport {
+
+    public static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private ProjectTestSupport() {
+    }
+
+    // Регистрирует пользователя и возвращает его JWT
+    public static String registerAndLogin(MockMvc mockMvc, ObjectMapper objectMapper, String email) throws Exception {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("123");
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk());
+
+        return mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    // Репозитории очищаются в переданном порядке: сначала зависимые таблицы
+    public static void cleanup(CrudRepository<?, ?>... repositories) {
+        for (CrudRepository<?, ?> repository : repositories) {
+            repository.deleteAll();
+        }
+    }
+
+    // Файлы path/File<n>.java, у каждого dayCount дней с START по 60 секунд кода и 120 открытия
+    public static ProjectStats buildProject(String path, int fileCount, int dayCount) {
+        ProjectStats project = new ProjectStats();
+        project.setProjectPath(path);
+
+        List<FileStats> files = new ArrayList<>();
+        for (int f = 0; f < fileCount; f++) {
+            FileStats file = new FileStats();
+            file.setFilePath(path + "/File" + f + ".java");
+
+            List<DailyStats> dailyStats = new ArrayList<>();
+            for (int d = 0; d < dayCount; d++) {
+                DailyStats daily = new DailyStats();
+                daily.setDate(START.plusDays(d));
+                daily.setCodingTime(60);
+                daily.setOpenTime(120);
+                dailyStats.add(daily);
+            }
+            file.setDailyStats(dailyStats);
+            files.add(file);
+        }
+        project.setFiles(files);
+        return project;
+    }
+}